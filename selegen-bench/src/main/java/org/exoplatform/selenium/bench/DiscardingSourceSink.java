@@ -0,0 +1,56 @@
+package org.exoplatform.selenium.bench;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.exoplatform.selenium.TestSourceSink;
+
+/**
+ * Drops the generated sources, counting their characters, so that the benchmarks measure the
+ * translation without the file system.
+ */
+public class DiscardingSourceSink implements TestSourceSink {
+
+	private final AtomicLong written = new AtomicLong();
+
+	public long getWritten() {
+		return written.get();
+	}
+
+	public boolean exists(String test) {
+		return false;
+	}
+
+	public Writer open(String test) throws IOException {
+		return new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) {
+				written.addAndGet(len);
+			}
+
+			@Override
+			public void write(String str, int off, int len) {
+				written.addAndGet(len);
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+
+	public void commit(String test, Writer writer) throws IOException {
+	}
+
+	public void abort(String test, Writer writer) {
+	}
+
+	public void remove(String test) {
+	}
+
+}
@@ -0,0 +1,79 @@
+package org.exoplatform.selenium.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.exoplatform.selenium.FileSourceSink;
+import org.exoplatform.selenium.SeleniumTestCaseGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generates a whole suite, as the build does without the incremental generation. The sources are
+ * discarded, or written to files when the sink is "file", the later runs then finding them unchanged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GenerateBenchmark {
+
+	/** The steps of each script. */
+	private static final int STEPS = 20;
+
+	@Param({"10", "1000", "10000"})
+	public int files;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	@Param({"discard", "file"})
+	public String sink;
+
+	private File suite;
+
+	private File output;
+
+	private SeleniumTestCaseGenerator generator;
+
+	private final SilentOutput silentOutput = new SilentOutput();
+
+	@Setup
+	public void setUp() throws Exception {
+		suite = SyntheticSuite.createDirectory("selegen-suite");
+		output = SyntheticSuite.createDirectory("selegen-generated");
+		SyntheticSuite.write(suite, files, STEPS);
+		generator = new SeleniumTestCaseGenerator(suite.getPath(), output.getPath());
+		generator.setIncremental(false);
+		generator.setThreads(threads);
+		generator.setSink(sink.equals("file") ? new FileSourceSink(output) : new DiscardingSourceSink());
+		silentOutput.mute();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		silentOutput.restore();
+		SyntheticSuite.delete(suite);
+		SyntheticSuite.delete(output);
+	}
+
+	@Benchmark
+	public int generate() throws Exception {
+		generator.run();
+		return generator.getTestsNumber();
+	}
+
+}
@@ -0,0 +1,63 @@
+package org.exoplatform.selenium.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.exoplatform.selenium.VariableInterpolator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Turns the parameters of the synthetic steps into Java string literals, as the generator does for each
+ * target and value, and resolves them as the interpreter does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class InterpolatorBenchmark {
+
+	private final String[] params = SyntheticSuite.getParams();
+
+	private final VariableInterpolator interpolator = new VariableInterpolator();
+
+	private final Map<String, String> variables = new HashMap<String, String>();
+
+	{
+		variables.put("title", "Classic");
+		variables.put("copy", "Classic \"copy\"");
+	}
+
+	@Benchmark
+	public void toJavaString(Blackhole blackhole) {
+		for (String param : params) {
+			blackhole.consume(interpolator.toJavaString(param));
+		}
+	}
+
+	@Benchmark
+	public void resolve(Blackhole blackhole) {
+		for (String param : params) {
+			blackhole.consume(interpolator.resolve(param, variables));
+		}
+	}
+
+	@Benchmark
+	public void escape(Blackhole blackhole) {
+		for (String param : params) {
+			blackhole.consume(VariableInterpolator.escape(param));
+		}
+	}
+
+}
@@ -0,0 +1,69 @@
+package org.exoplatform.selenium.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.exoplatform.selenium.SeleneseCommand;
+import org.exoplatform.selenium.SeleneseHandler;
+import org.exoplatform.selenium.SeleneseParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reads a recorded script into its commands, as done for each script before it is translated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ParserBenchmark {
+
+	@Param({"10", "1000", "100000"})
+	public int steps;
+
+	private File suite;
+
+	private File script;
+
+	private final SeleneseParser parser = new SeleneseParser();
+
+	@Setup
+	public void setUp() throws IOException {
+		suite = SyntheticSuite.createDirectory("selegen-parser");
+		script = new File(suite, "Test_Parser.html");
+		SyntheticSuite.writeScript(script, steps);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		SyntheticSuite.delete(suite);
+	}
+
+	@Benchmark
+	public void parse(final Blackhole blackhole) throws IOException {
+		parser.parse(script, new SeleneseHandler() {
+			public void header(String title, String caption) {
+				blackhole.consume(title);
+			}
+
+			public void command(SeleneseCommand command) {
+				blackhole.consume(command);
+			}
+		});
+	}
+
+}
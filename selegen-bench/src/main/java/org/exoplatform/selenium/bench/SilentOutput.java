@@ -0,0 +1,26 @@
+package org.exoplatform.selenium.bench;
+
+import java.io.PrintStream;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * Drops the logs of the generator while it is benchmarked, one line being printed for each script.
+ */
+public class SilentOutput {
+
+	private PrintStream out;
+
+	public void mute() {
+		out = System.out;
+		System.setOut(new PrintStream(new NullOutputStream()));
+	}
+
+	public void restore() {
+		if (out != null) {
+			System.setOut(out);
+			out = null;
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package org.exoplatform.selenium.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Writes a suite of recorded scripts for the benchmarks, the steps cycling through the commands of a
+ * typical portal recording: navigation, typing with variables, XPath and id locators, waits and checks.
+ * The scripts are spread over directories of at most 100 scripts, as a real suite is over packages.
+ */
+public class SyntheticSuite {
+
+	private static final int SCRIPTS_PER_DIRECTORY = 100;
+
+	/** The steps repeated by the scripts, as command, target and value. */
+	private static final String[][] STEPS = {
+	      {"open", "/portal/public/classic/", ""},
+	      {"storeText", "//div[@class='UIPageBody']/div[2]", "title"},
+	      {"waitForElementPresent", "link=Sign in", ""},
+	      {"clickAndWait", "link=Sign in", ""},
+	      {"type", "username", "root"},
+	      {"type", "password", "gtn"},
+	      {"click", "//div[@id='UIPortalLoginFormAction']", ""},
+	      {"waitForTextPresent", "Welcome ${title}", ""},
+	      {"mouseOver", "//a[@class='ItemIcon SiteIcon' and @title='Site']", ""},
+	      {"click", "//a[@class='ItemIcon SiteIcon' and @title='Site']", ""},
+	      {"verifyText", "//div[@id='UIPortalNavigation']//a[contains(@href, 'home')]", "Home\\n${title}"},
+	      {"storeEval", "'${title}' + \" copy\"", "copy"},
+	      {"echo", "storedVars['copy'] <br /> done", ""},
+	      {"waitForVisible", "css=div.UIPopupWindow", ""},
+	      {"verifyElementPresent", "id=UIPortalComposer", ""},
+	      {"pause", "500", ""}};
+
+	private SyntheticSuite() {
+	}
+
+	/**
+	 * Writes the scripts in the suite directory.
+	 *
+	 * @param scripts the number of Test_*.html scripts
+	 * @param steps the number of steps of each script
+	 */
+	public static void write(File suite, int scripts, int steps) throws IOException {
+		for (int i = 0; i < scripts; i++) {
+			File directory = new File(suite, "org/exoplatform/bench/p" + (i / SCRIPTS_PER_DIRECTORY));
+			writeScript(new File(directory, "Test_Bench_" + i + ".html"), steps);
+		}
+	}
+
+	public static void writeScript(File script, int steps) throws IOException {
+		script.getParentFile().mkdirs();
+		String name = script.getName().substring(0, script.getName().lastIndexOf('.'));
+		Writer out = new OutputStreamWriter(new FileOutputStream(script), "UTF-8");
+		try {
+			out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			out.write("<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Strict//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd\">\n");
+			out.write("<html xmlns=\"http://www.w3.org/1999/xhtml\" xml:lang=\"en\" lang=\"en\">\n");
+			out.write("<head profile=\"http://selenium-ide.openqa.org/profiles/test-case\">\n");
+			out.write("<meta http-equiv=\"Content-Type\" content=\"text/html; charset=UTF-8\" />\n");
+			out.write("<title>" + name + "</title>\n");
+			out.write("</head>\n<body>\n<table cellpadding=\"1\" cellspacing=\"1\" border=\"1\">\n");
+			out.write("<thead>\n<tr><td rowspan=\"1\" colspan=\"3\">" + name + "</td></tr>\n</thead><tbody>\n");
+			for (int i = 0; i < steps; i++) {
+				String[] step = STEPS[i % STEPS.length];
+				out.write("<tr>\n\t<td>" + step[0] + "</td>\n\t<td>" + escape(step[1]) + "</td>\n\t<td>" + escape(step[2])
+				      + "</td>\n</tr>\n");
+			}
+			out.write("</tbody></table>\n</body>\n</html>\n");
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+	/**
+	 * Returns the parameters of the steps, for the benchmarks of the interpolation.
+	 */
+	public static String[] getParams() {
+		String[] params = new String[STEPS.length * 2];
+		for (int i = 0; i < STEPS.length; i++) {
+			params[2 * i] = STEPS[i][1];
+			params[2 * i + 1] = STEPS[i][2];
+		}
+		return params;
+	}
+
+	private static String escape(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+	}
+
+	public static File createDirectory(String prefix) throws IOException {
+		File directory = File.createTempFile(prefix, "");
+		if (!directory.delete() || !directory.mkdirs()) {
+			throw new IOException("Cannot create " + directory);
+		}
+		return directory;
+	}
+
+	public static void delete(File directory) throws IOException {
+		if (directory != null) {
+			FileUtils.deleteDirectory(directory);
+		}
+	}
+
+}
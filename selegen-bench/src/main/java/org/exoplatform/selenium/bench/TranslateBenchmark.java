@@ -0,0 +1,63 @@
+package org.exoplatform.selenium.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.exoplatform.selenium.SeleniumTestCaseGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Translates one script into its test class, the source being discarded: parsing, optimizations
+ * (-Dselegen.optimize in the JVM arguments) and the emitters of every command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class TranslateBenchmark {
+
+	@Param({"10", "1000", "100000"})
+	public int steps;
+
+	private File suite;
+
+	private SeleniumTestCaseGenerator generator;
+
+	private final SilentOutput output = new SilentOutput();
+
+	@Setup
+	public void setUp() throws Exception {
+		suite = SyntheticSuite.createDirectory("selegen-translate");
+		SyntheticSuite.writeScript(new File(suite, "bench/Test_Translate.html"), steps);
+		generator = new SeleniumTestCaseGenerator(suite.getPath(), suite.getPath());
+		generator.setSink(new DiscardingSourceSink());
+		output.mute();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		output.restore();
+		SyntheticSuite.delete(suite);
+	}
+
+	@Benchmark
+	public long translate() throws Exception {
+		generator.generateFile("bench/Test_Translate.html", "bench");
+		return ((DiscardingSourceSink) generator.getSink()).getWritten();
+	}
+
+}
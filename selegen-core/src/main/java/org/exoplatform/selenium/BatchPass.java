@@ -0,0 +1,102 @@
+package org.exoplatform.selenium;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.exoplatform.selenium.runtime.SeleneseBatch;
+
+/**
+ * Merges the consecutive commands filling a form, such as type, select and check, into one batch command
+ * run by {@link SeleneseBatch} in one call to the browser. The merged commands neither wait nor check
+ * anything, so that running them together does not change what the test waits for.
+ * <p>
+ * A command is kept out of the batches when its locator is a DOM or link one or uses a strategy other
+ * than id, name, identifier, css and xpath, when its target or value has a line break, a backslash or a |
+ * which would break the lines of the batch, or when it selects an option by a pattern.
+ */
+public class BatchPass implements OptimizationPass {
+
+	/** The smallest number of commands worth a batch. */
+	private static final int MIN_SIZE = 2;
+
+	public String getName() {
+		return "batch";
+	}
+
+	public List<SeleneseCommand> apply(String scriptFile, List<SeleneseCommand> commands) {
+		List<SeleneseCommand> result = new ArrayList<SeleneseCommand>(commands.size());
+		int i = 0;
+		while (i < commands.size()) {
+			int end = i;
+			while (end < commands.size() && isBatchable(commands.get(end))) {
+				end++;
+			}
+			if (end - i < MIN_SIZE) {
+				result.add(commands.get(i));
+				i++;
+				continue;
+			}
+			SeleneseCommand first = commands.get(i);
+			StringBuilder lines = new StringBuilder();
+			for (int j = i; j < end; j++) {
+				SeleneseCommand command = commands.get(j);
+				if (j > i) {
+					lines.append('\n');
+					OptimizationPasses.report(scriptFile, command, command.getName() + " \"" + command.getTarget()
+					      + "\" merged into the batch of line " + first.getLine());
+				}
+				lines.append(command.getName()).append(" | ").append(command.getTarget()).append(" | ")
+				      .append(command.getValue());
+			}
+			result.add(new SeleneseCommand(first.getIndex(), first.getLine(), "batch", lines.toString(), ""));
+			i = end;
+		}
+		return result;
+	}
+
+	private static boolean isBatchable(SeleneseCommand command) {
+		if (!SeleneseBatch.COMMANDS.contains(command.getName())) {
+			return false;
+		}
+		String target = command.getTarget();
+		String value = command.getValue();
+		if (!isPlain(target) || !isPlain(value) || target.length() == 0) {
+			return false;
+		}
+		switch (LocatorAnalyzer.getKind(target)) {
+			case DOM :
+			case LINK :
+				return false;
+			case ID :
+			case NAME :
+				// the name locators can have value= or index= filters after a space
+				if (target.indexOf(' ') != -1) {
+					return false;
+				}
+				break;
+			case IDENTIFIER :
+				// only the bare and identifier= ones, the other strategies, as ui=, being unknown to the batch
+				if (target.indexOf(' ') != -1 || target.indexOf('=') != -1 && !target.startsWith("identifier=")) {
+					return false;
+				}
+				break;
+			default :
+				break;
+		}
+		if (command.getName().equals("select")) {
+			// the labels are glob patterns, the other option locators being matched exactly
+			String option = value.startsWith("label=") ? value.substring(6) : value;
+			if (option.indexOf('*') != -1 || option.indexOf('?') != -1 || option.startsWith("regexp:")
+			      || option.startsWith("regexpi:") || option.startsWith("glob:") || option.startsWith("exact:")) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPlain(String param) {
+		return param.indexOf('\n') == -1 && param.indexOf('\\') == -1 && param.indexOf('|') == -1
+		      && !param.contains("<br />");
+	}
+
+}
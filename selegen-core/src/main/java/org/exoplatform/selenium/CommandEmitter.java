@@ -0,0 +1,18 @@
+package org.exoplatform.selenium;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the Java code of one Selenese command. The target and the value of the command are already
+ * escaped for a Java string literal, with their variables interpolated.
+ * <p>
+ * A command storing a variable declares it as <code>final String name = ...;</code> at the start of a
+ * line, name being the Java identifier of the variable, so that the generator reads it instead of the
+ * global variable of the same name.
+ */
+public interface CommandEmitter {
+
+	void emit(SeleneseCommand command, Writer out) throws IOException;
+
+}
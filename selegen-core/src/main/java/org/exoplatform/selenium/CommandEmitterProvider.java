@@ -0,0 +1,12 @@
+package org.exoplatform.selenium;
+
+/**
+ * Adds command emitters to the generator. Implementations are found with {@link java.util.ServiceLoader},
+ * being declared in a META-INF/services/org.exoplatform.selenium.CommandEmitterProvider file of their
+ * jar, so that the commands of a user extension can be translated without changing selegen.
+ */
+public interface CommandEmitterProvider {
+
+	void register(CommandEmitterRegistry registry);
+
+}
@@ -0,0 +1,62 @@
+package org.exoplatform.selenium;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * The emitters of the Selenese commands, by command name.
+ */
+public class CommandEmitterRegistry {
+
+	private final Map<String, CommandEmitter> emitters = new HashMap<String, CommandEmitter>();
+
+	private final List<CommandEmitterProvider> providers = new ArrayList<CommandEmitterProvider>();
+
+	/**
+	 * Creates a registry with the built-in commands and the ones of the {@link CommandEmitterProvider}s
+	 * found in the class path, which can replace built-in ones.
+	 */
+	public static CommandEmitterRegistry createDefault() {
+		CommandEmitterRegistry registry = new CommandEmitterRegistry();
+		new DefaultCommandEmitters().register(registry);
+		for (CommandEmitterProvider provider : ServiceLoader.load(CommandEmitterProvider.class)) {
+			System.out.println("[INFO] Registering commands of " + provider.getClass().getName());
+			registry.register(provider);
+		}
+		return registry;
+	}
+
+	public void register(CommandEmitterProvider provider) {
+		provider.register(this);
+		providers.add(provider);
+	}
+
+	/**
+	 * Returns the providers registered besides the built-in commands.
+	 */
+	public List<CommandEmitterProvider> getProviders() {
+		return providers;
+	}
+
+	public void register(String command, CommandEmitter emitter) {
+		emitters.put(command, emitter);
+	}
+
+	/**
+	 * Registers a {@link TemplateEmitter} for the command.
+	 */
+	public void register(String command, String template) {
+		register(command, new TemplateEmitter(template));
+	}
+
+	/**
+	 * Returns the emitter of the command, or null when the command is not translated.
+	 */
+	public CommandEmitter get(String command) {
+		return emitters.get(command);
+	}
+
+}
@@ -0,0 +1,141 @@
+package org.exoplatform.selenium;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.exoplatform.selenium.runtime.SeleneseBatch;
+import org.exoplatform.selenium.runtime.SeleneseWait;
+
+/**
+ * The commands translated by selegen itself.
+ */
+public class DefaultCommandEmitters implements CommandEmitterProvider {
+
+	private static final String MOUSE_OVER = "selenium.mouseOver(\"{target}\");\n";
+
+	public void register(CommandEmitterRegistry registry) {
+		registry.register("open", "selenium.open(\"{target}\");\n");
+		registry.register("refresh", "selenium.refresh();\n");
+		registry.register("windowMaximize", "selenium.windowMaximize();\n");
+		registry.register("echo", "System.out.println(\"{target}\");\n");
+		registry.register("pause", "Thread.sleep({target});\n");
+		registry.register("waitForAlert", waitFor("selenium.getAlert().equals(\"{target}\")"));
+
+		// actions
+		registry.register("mouseOver", MOUSE_OVER);
+		registry.register("click", MOUSE_OVER + "selenium.click(\"{target}\");\n");
+		registry.register("clickAt", MOUSE_OVER + "selenium.clickAt(\"{target}\", \"1,1\");\n");
+		registry.register("clickAtAndWait", MOUSE_OVER + "selenium.clickAt(\"{target}\", \"1,1\");\n"
+		      + "selenium.waitForPageToLoad(timeout);\n");
+		registry.register("clickAndWait", MOUSE_OVER + "selenium.click(\"{target}\");\n");
+		registry.register("selectAndWait", "selenium.select(\"{target}\", \"{value}\");\n"
+		      + "selenium.waitForPageToLoad(timeout);\n");
+		registry.register("dragAndDropToObject", "selenium.dragAndDropToObject(\"{target}\",\"{value}\");\n");
+		registerAll(registry, "selenium.{command}(\"{target}\");\n", "check", "uncheck", "contextMenu", "mouseDown",
+		      "doubleClick", "mouseDownRight", "mouseUp", "selectFrame", "selectWindow", "focus");
+		registerAll(registry, "selenium.{command}();\n", "close", "chooseCancelOnNextConfirmation");
+		registerAll(registry, "selenium.{command}(\"{target}\", \"{value}\");\n", "addSelection", "select", "type",
+		      "typeKeys", "waitForPopUp", "keyDown", "keyUp", "keyPress");
+		registry.register("batch", new BatchEmitter());
+
+		// variables, final as they can be read by the conditions of the waits (fields of the test when it
+		// is generated in checkpointed segments)
+		registry.register("storeText", "final String {variable} = selenium.getText(\"{target}\").toString();\n");
+		registry.register("storeEval", "final String {variable} = selenium.getEval(\"{target}\").toString();\n");
+		registry.register("storeXpathCount", "final String {variable} = selenium.getXpathCount(\"{target}\").toString();\n");
+		registry.register("storeAttribute", "final String {variable} = selenium.getAttribute(\"{target}\");\n");
+
+		// variables of the user extensions kept for the following tests, see GlobalVariables
+		registry.register("storeGlobal", "GlobalVariables.store(\"{value}\", \"{target}\");\n");
+		registry.register("storeTextGlobal", "GlobalVariables.store(\"{value}\", selenium.getText(\"{target}\"));\n");
+		registry.register("storeValueGlobal", "GlobalVariables.store(\"{value}\", selenium.getValue(\"{target}\"));\n");
+		registry.register("storeAttributeGlobal",
+		      "GlobalVariables.store(\"{value}\", selenium.getAttribute(\"{target}\"));\n");
+
+		// assertions
+		registry.register("verifyTitle", "assertEquals(\"{target}\", selenium.getTitle());\n");
+		registry.register("verifyLocation", "assertEquals(\"{target}\", selenium.getLocation());\n");
+		registry.register("verifyValue", "assertEquals(\"{value}\", selenium.getValue(\"{target}\"));\n");
+		registry.register("verifyEval", "assertEquals(\"{value}\", selenium.getEval(\"{target}\"));\n");
+		registry.register("verifyText", "assertTrue(selenium.getText(\"{target}\").equals(\"{value}\"));\n");
+		registry.register("verifySelectedValue",
+		      "assertTrue(selenium.getSelectedValue(\"{target}\").equals(\"{value}\"));\n");
+		registry.register("verifyAttribute", "assertTrue(selenium.getAttribute(\"{target}\").equals(\"{value}\"));\n");
+		registry.register("verifyVisible", "assertTrue(selenium.isVisible(\"{target}\"));\n");
+		registry.register("verifyNotVisible", "assertFalse(selenium.isVisible(\"{target}\"));\n");
+		registry.register("verifyChecked", "assertTrue(selenium.isChecked(\"{target}\"));\n");
+		registry.register("verifyTextPresent", "assertTrue(selenium.isTextPresent(\"{target}\"));\n");
+		registry.register("verifyTextNotPresent", "assertFalse(selenium.isTextPresent(\"{target}\"));\n");
+		registry.register("verifyElementPresent", "assertTrue(selenium.isElementPresent(\"{target}\"));\n");
+		registry.register("verifyElementNotPresent", "assertFalse(selenium.isElementPresent(\"{target}\"));\n");
+		registry.register("waitForValue", "assertTrue(selenium.getValue(\"{target}\").matches(\"^{value}$\"));\n");
+		CommandEmitter confirmation = new ConfirmationEmitter();
+		registry.register("assertConfirmation", confirmation);
+		registry.register("verifyConfirmation", confirmation);
+
+		// waits
+		registry.register("waitForVisible", waitFor("selenium.isVisible(\"{target}\")"));
+		registry.register("waitForNotVisible", waitFor("!selenium.isVisible(\"{target}\")"));
+		registry.register("waitForElementPresent", waitFor("selenium.isElementPresent(\"{target}\")"));
+		registry.register("waitForElementNotPresent", waitFor("!selenium.isElementPresent(\"{target}\")"));
+		registry.register("waitForText", waitFor("selenium.isElementPresent(\"{target}\")"));
+		registry.register("waitForTextPresent", waitFor("selenium.isTextPresent(\"{target}\")"));
+		registry.register("waitForTextNotPresent", waitFor("!selenium.isTextPresent(\"{target}\")"));
+		registry.register("waitForNotChecked", waitFor("!selenium.isChecked(\"{target}\")"));
+		registry.register("waitForConfirmation", waitFor("selenium.getConfirmation().equals(\"{target}\")"));
+		registry.register("waitForConfirmationPresent", waitFor("selenium.isConfirmationPresent()"));
+	}
+
+	private static void registerAll(CommandEmitterRegistry registry, String template, String... commands) {
+		CommandEmitter emitter = new TemplateEmitter(template);
+		for (String command : commands) {
+			registry.register(command, emitter);
+		}
+	}
+
+	/**
+	 * Returns the template of a wait for the condition, polled by {@link SeleneseWait} until the
+	 * selenium.timeout of the test.
+	 */
+	private static String waitFor(String condition) {
+		return "SeleneseWait.waitFor(\"{command}\", \"{target}\", timeout, new SeleneseWait.Condition() {\n"
+		      + "public boolean isTrue() {\nreturn " + condition + ";\n}\n});\n";
+	}
+
+	/**
+	 * The confirmation is matched as a regular expression, in which the ? of the recorded text matches
+	 * any character.
+	 */
+	private static class ConfirmationEmitter implements CommandEmitter {
+
+		public void emit(SeleneseCommand command, Writer out) throws IOException {
+			out.write("assertTrue(selenium.getConfirmation().matches(\"^");
+			out.write(command.getTarget().replace("?", "[\\\\s\\\\S]"));
+			out.write("$\"));\n");
+		}
+
+	}
+
+	/**
+	 * The actions of a batch are its target lines, as <code>command | target | value</code>, run by a
+	 * {@link SeleneseBatch}. They are split when the code is generated, so that the values of their
+	 * variables can hold any text.
+	 */
+	private static class BatchEmitter implements CommandEmitter {
+
+		public void emit(SeleneseCommand command, Writer out) throws IOException {
+			out.write("new SeleneseBatch(selenium)\n");
+			for (String line : command.getTarget().split("\\\\n")) {
+				if (line.trim().length() == 0) {
+					continue;
+				}
+				String[] parts = line.split(" \\|(?: |$)", -1);
+				out.write(".add(\"" + parts[0].trim() + "\", \"" + (parts.length > 1 ? parts[1] : "") + "\", \""
+				      + (parts.length > 2 ? parts[2] : "") + "\")\n");
+			}
+			out.write(".run();\n");
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+package org.exoplatform.selenium;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Writes the tests as UTF-8 .java files of an output directory. Each test is streamed to a temporary file
+ * replacing the .java file only when it changed, so that its timestamp does not trigger a new compilation.
+ */
+public class FileSourceSink implements TestSourceSink {
+
+	private final File outputdir;
+
+	public FileSourceSink(File outputdir) {
+		this.outputdir = outputdir;
+	}
+
+	public File getTestFile(String test) {
+		return new File(outputdir, test + ".java");
+	}
+
+	public boolean exists(String test) {
+		return getTestFile(test).exists();
+	}
+
+	public Writer open(String test) throws IOException {
+		File tmpFile = getTmpFile(test);
+		tmpFile.getParentFile().mkdirs();
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpFile), "UTF-8"));
+	}
+
+	public void commit(String test, Writer writer) throws IOException {
+		File generatedFile = getTmpFile(test);
+		File testFile = getTestFile(test);
+		if (testFile.exists() && FileUtils.contentEquals(generatedFile, testFile)) {
+			System.out.println("[INFO] Unchanged file : " + testFile);
+			generatedFile.delete();
+			return;
+		}
+		System.out.println("[INFO] Writing file : " + testFile);
+		testFile.delete();
+		if (!generatedFile.renameTo(testFile)) {
+			throw new IOException("Unable to write " + testFile);
+		}
+	}
+
+	public void abort(String test, Writer writer) {
+		IOUtils.closeQuietly(writer);
+		getTmpFile(test).delete();
+	}
+
+	public void remove(String test) {
+		File testFile = getTestFile(test);
+		if (testFile.delete()) {
+			System.out.println("[INFO] Removing file : " + testFile);
+		}
+	}
+
+	private File getTmpFile(String test) {
+		return new File(outputdir, test + ".java.tmp");
+	}
+
+}
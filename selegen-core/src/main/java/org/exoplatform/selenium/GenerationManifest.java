@@ -0,0 +1,188 @@
+package org.exoplatform.selenium;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Remembers, in the output directory, the hash of every translated script and of the generator which
+ * translated it, so that unchanged scripts are not generated again.
+ */
+public class GenerationManifest {
+
+	public static final String MANIFEST_FILE = ".selegen-manifest";
+
+	private static final String SIGNATURE_KEY = "selegen.generator";
+
+	private final File file;
+
+	private final String signature;
+
+	/** Hashes read from the previous generation, empty when the generator changed. */
+	private final Map<String, String> previous = new ConcurrentHashMap<String, String>();
+
+	/** Hashes of the scripts met by the current generation. */
+	private final Map<String, String> current = new ConcurrentHashMap<String, String>();
+
+	public GenerationManifest(File outputdir, String signature) throws IOException {
+		this.file = new File(outputdir, MANIFEST_FILE);
+		this.signature = signature;
+		if (file.exists()) {
+			Properties properties = new Properties();
+			Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+			try {
+				properties.load(reader);
+			} finally {
+				IOUtils.closeQuietly(reader);
+			}
+			if (signature.equals(properties.getProperty(SIGNATURE_KEY))) {
+				for (String script : properties.stringPropertyNames()) {
+					if (!script.equals(SIGNATURE_KEY)) {
+						previous.put(script, properties.getProperty(script));
+					}
+				}
+			} else {
+				System.out.println("[INFO] Generator changed, all the tests will be generated");
+			}
+		}
+	}
+
+	/**
+	 * Returns true when the script had the same hash at the previous generation and its output is still
+	 * there. The script is then kept in the manifest.
+	 */
+	public boolean isUpToDate(String script, String hash, File output) {
+		return isUpToDate(script, hash, output.exists());
+	}
+
+	public boolean isUpToDate(String script, String hash, boolean outputExists) {
+		if (hash.equals(previous.get(script)) && outputExists) {
+			current.put(script, hash);
+			return true;
+		}
+		return false;
+	}
+
+	public void generated(String script, String hash) {
+		current.put(script, hash);
+	}
+
+	/**
+	 * Returns the scripts of the previous generation which were not met by the current one.
+	 */
+	public List<String> getRemovedScripts() {
+		List<String> removed = new ArrayList<String>();
+		for (String script : new TreeSet<String>(previous.keySet())) {
+			if (!current.containsKey(script)) {
+				removed.add(script);
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Keeps the scripts of the previous generation which were not met by the current one, when it only
+	 * generated some scripts of the suite or failed before the end.
+	 */
+	public void keepPrevious() {
+		for (Map.Entry<String, String> entry : previous.entrySet()) {
+			if (!current.containsKey(entry.getKey())) {
+				current.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	public void save() throws IOException {
+		Properties properties = new Properties();
+		properties.putAll(current);
+		properties.put(SIGNATURE_KEY, signature);
+		StringWriter writer = new StringWriter();
+		properties.store(writer, null);
+		// sorted and without the date comment so that the manifest only changes with the scripts
+		List<String> lines = new ArrayList<String>();
+		for (String line : writer.toString().split("\n")) {
+			line = line.trim();
+			if (line.length() > 0 && !line.startsWith("#")) {
+				lines.add(line);
+			}
+		}
+		Collections.sort(lines);
+		lines.add(0, "# Generated by selegen, do not edit");
+		FileUtils.writeLines(file, "UTF-8", lines);
+	}
+
+	public static String hash(File file) throws IOException {
+		return hash(FileUtils.readFileToByteArray(file));
+	}
+
+	public static String hash(byte[] content) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		byte[] bytes = digest.digest(content);
+		StringBuffer sb = new StringBuffer(bytes.length * 2);
+		for (int i = 0; i < bytes.length; i++) {
+			sb.append(Character.forDigit((bytes[i] >> 4) & 0xf, 16));
+			sb.append(Character.forDigit(bytes[i] & 0xf, 16));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Hashes the jar or the classes directory containing the given class, so that any change of the
+	 * generator code invalidates the manifest.
+	 */
+	public static String codeHash(Class<?> type) throws IOException {
+		CodeSource source = type.getProtectionDomain().getCodeSource();
+		URL location = source != null ? source.getLocation() : null;
+		if (location == null || !"file".equals(location.getProtocol())) {
+			return "unknown";
+		}
+		File code = FileUtils.toFile(location);
+		List<File> files = new ArrayList<File>();
+		if (code.isDirectory()) {
+			listFiles(code, files);
+		} else {
+			files.add(code);
+		}
+		List<String> hashes = new ArrayList<String>();
+		for (File file : files) {
+			hashes.add(hash(file));
+		}
+		return hash(hashes.toString().getBytes("UTF-8"));
+	}
+
+	private static void listFiles(File directory, List<File> files) {
+		File[] children = directory.listFiles();
+		Arrays.sort(children);
+		for (File child : children) {
+			if (child.isDirectory()) {
+				listFiles(child, files);
+			} else {
+				files.add(child);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,333 @@
+package org.exoplatform.selenium;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Classifies the element locators of the recorded commands by their expected evaluation cost, and
+ * rewrites the simple XPaths into the equivalent id=, name= or css= locators.
+ * <p>
+ * Only the XPaths made of element steps whose predicates are attribute equalities or
+ * <code>contains(@attribute, 'text')</code>, joined with <code>and</code>, are rewritten: positions,
+ * text() and the other functions have no CSS equivalent.
+ */
+public class LocatorAnalyzer {
+
+	/** The built-in commands whose target is an element locator. */
+	private static final Set<String> LOCATOR_TARGETS = new HashSet<String>(Arrays.asList("mouseOver", "click",
+	      "clickAt", "clickAtAndWait", "clickAndWait", "selectAndWait", "dragAndDropToObject", "check", "uncheck",
+	      "contextMenu", "mouseDown", "doubleClick", "mouseDownRight", "mouseUp", "focus", "addSelection", "select",
+	      "type", "typeKeys", "keyDown", "keyUp", "keyPress", "storeText", "storeTextGlobal", "storeValueGlobal",
+	      "verifyValue", "verifyText",
+	      "verifySelectedValue", "verifyVisible", "verifyNotVisible", "verifyChecked", "verifyElementPresent",
+	      "verifyElementNotPresent", "waitForValue", "waitForVisible", "waitForNotVisible", "waitForElementPresent",
+	      "waitForElementNotPresent", "waitForText", "waitForNotChecked"));
+
+	/** The built-in commands whose value is an element locator. */
+	private static final Set<String> LOCATOR_VALUES = new HashSet<String>(Arrays.asList("dragAndDropToObject"));
+
+	/**
+	 * The kinds of locators, from the cheapest to evaluate.
+	 */
+	public enum Kind {
+		ID, NAME, IDENTIFIER, CSS, LINK, XPATH, DOM
+	}
+
+	public static boolean isLocatorTarget(String command) {
+		return LOCATOR_TARGETS.contains(command);
+	}
+
+	public static boolean isLocatorValue(String command) {
+		return LOCATOR_VALUES.contains(command);
+	}
+
+	public static Kind getKind(String locator) {
+		if (locator.startsWith("id=")) {
+			return Kind.ID;
+		} else if (locator.startsWith("name=")) {
+			return Kind.NAME;
+		} else if (locator.startsWith("css=")) {
+			return Kind.CSS;
+		} else if (locator.startsWith("link=")) {
+			return Kind.LINK;
+		} else if (locator.startsWith("xpath=") || locator.startsWith("//") || locator.startsWith("/")
+		      || locator.startsWith("(")) {
+			return Kind.XPATH;
+		} else if (locator.startsWith("dom=") || locator.startsWith("document.")) {
+			return Kind.DOM;
+		}
+		return Kind.IDENTIFIER;
+	}
+
+	/**
+	 * Returns the expected cost of the locator: 1 for an id, growing with the number of steps of the
+	 * XPaths and the CSS selectors, the absolute XPaths and the positional or function predicates being
+	 * the most expensive.
+	 */
+	public static int getCost(String locator) {
+		switch (getKind(locator)) {
+			case ID :
+				return 1;
+			case NAME :
+			case IDENTIFIER :
+				return 2;
+			case CSS :
+				return 3 + count(locator, ' ') + count(locator, '>');
+			case LINK :
+				return 5;
+			case DOM :
+				return 10;
+			default :
+				String xpath = locator.startsWith("xpath=") ? locator.substring(6) : locator;
+				int steps = 0;
+				for (String step : xpath.split("/")) {
+					if (step.length() > 0) {
+						steps++;
+					}
+				}
+				int cost = 5 + 2 * steps;
+				if (xpath.startsWith("/") && !xpath.startsWith("//")) {
+					// absolute paths follow the whole document
+					cost += 10;
+				}
+				for (int i = 0; i < xpath.length(); i++) {
+					if (xpath.charAt(i) == '[' && i + 1 < xpath.length() && Character.isDigit(xpath.charAt(i + 1))) {
+						cost += 3;
+					}
+				}
+				cost += 3 * (countString(xpath, "text()") + countString(xpath, "contains(")
+				      + countString(xpath, "ancestor") + countString(xpath, "following") + countString(xpath, "preceding"));
+				return cost;
+		}
+	}
+
+	private static int count(String s, char c) {
+		int count = 0;
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) == c) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static int countString(String s, String part) {
+		int count = 0;
+		for (int i = s.indexOf(part); i != -1; i = s.indexOf(part, i + part.length())) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the equivalent cheaper locator of a simple XPath, or null when the locator is not an XPath
+	 * or cannot be rewritten safely.
+	 */
+	public static String rewrite(String locator) {
+		if (getKind(locator) != Kind.XPATH) {
+			return null;
+		}
+		String xpath = locator.startsWith("xpath=") ? locator.substring(6) : locator;
+		return new XPathRewriter(xpath).rewrite();
+	}
+
+	/**
+	 * Parses a simple XPath into a CSS selector.
+	 */
+	private static class XPathRewriter {
+
+		private final String xpath;
+
+		private int pos;
+
+		private final StringBuilder css = new StringBuilder();
+
+		private int steps;
+
+		/** The only predicate of a single step, as id=... or name=..., when there is one. */
+		private String simpleLocator;
+
+		XPathRewriter(String xpath) {
+			this.xpath = xpath;
+		}
+
+		String rewrite() {
+			while (pos < xpath.length()) {
+				if (xpath.startsWith("//", pos)) {
+					pos += 2;
+					if (steps > 0) {
+						css.append(' ');
+					}
+				} else if (xpath.charAt(pos) == '/') {
+					pos++;
+					if (steps > 0) {
+						css.append(" > ");
+					} else if (!xpath.startsWith("html", pos)) {
+						// only the html element can be the root
+						return null;
+					}
+				} else {
+					return null;
+				}
+				if (!step()) {
+					return null;
+				}
+				steps++;
+			}
+			if (steps == 0) {
+				return null;
+			}
+			if (steps == 1 && simpleLocator != null) {
+				return simpleLocator;
+			}
+			return "css=" + css;
+		}
+
+		private boolean step() {
+			String tag = name();
+			if (tag == null) {
+				if (pos < xpath.length() && xpath.charAt(pos) == '*') {
+					pos++;
+					tag = "*";
+				} else {
+					return false;
+				}
+			} else if (!tag.equals(tag.toLowerCase())) {
+				// HTML element names are matched in lower case by the CSS selectors
+				return false;
+			}
+			css.append(tag);
+			int conditions = 0;
+			String attribute = null;
+			String value = null;
+			while (pos < xpath.length() && xpath.charAt(pos) == '[') {
+				pos++;
+				do {
+					skipSpaces();
+					boolean contains = xpath.startsWith("contains(", pos);
+					if (contains) {
+						pos += "contains(".length();
+						skipSpaces();
+					}
+					if (pos >= xpath.length() || xpath.charAt(pos) != '@') {
+						return false;
+					}
+					pos++;
+					attribute = name();
+					if (attribute == null) {
+						return false;
+					}
+					skipSpaces();
+					if (pos >= xpath.length() || xpath.charAt(pos) != (contains ? ',' : '=')) {
+						return false;
+					}
+					pos++;
+					skipSpaces();
+					value = literal();
+					if (value == null) {
+						return false;
+					}
+					if (contains) {
+						skipSpaces();
+						if (pos >= xpath.length() || xpath.charAt(pos) != ')') {
+							return false;
+						}
+						pos++;
+						// an empty text is contained by any value, not by the CSS substring selector
+						if (value.length() == 0) {
+							return false;
+						}
+						css.append('[').append(attribute).append("*='").append(value).append("']");
+						attribute = null;
+					} else if (attribute.equals("id") && isIdentifier(value)) {
+						css.append('#').append(value);
+					} else {
+						css.append('[').append(attribute).append("='").append(value).append("']");
+					}
+					conditions++;
+					skipSpaces();
+				} while (and());
+				if (pos >= xpath.length() || xpath.charAt(pos) != ']') {
+					return false;
+				}
+				pos++;
+			}
+			// the id= and name= locators end at the first space, the other values staying CSS selectors
+			if (steps == 0 && tag.equals("*") && conditions == 1 && attribute != null
+			      && (attribute.equals("id") || attribute.equals("name")) && isIdentifier(value)) {
+				simpleLocator = attribute + "=" + value;
+			} else {
+				simpleLocator = null;
+			}
+			return true;
+		}
+
+		private boolean and() {
+			if (xpath.startsWith("and ", pos)) {
+				pos += 4;
+				return true;
+			}
+			return false;
+		}
+
+		private String name() {
+			int start = pos;
+			while (pos < xpath.length()) {
+				char c = xpath.charAt(pos);
+				if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_'
+				      || (pos > start && ((c >= '0' && c <= '9') || c == '-'))) {
+					pos++;
+				} else {
+					break;
+				}
+			}
+			return pos > start ? xpath.substring(start, pos) : null;
+		}
+
+		/**
+		 * Reads a quoted value, which must not contain quotes or backslashes to be written in a CSS
+		 * selector.
+		 */
+		private String literal() {
+			if (pos >= xpath.length()) {
+				return null;
+			}
+			char quote = xpath.charAt(pos);
+			if (quote != '\'' && quote != '"') {
+				return null;
+			}
+			int end = xpath.indexOf(quote, pos + 1);
+			if (end == -1) {
+				return null;
+			}
+			String value = xpath.substring(pos + 1, end);
+			if (value.indexOf('\'') != -1 || value.indexOf('"') != -1 || value.indexOf('\\') != -1) {
+				return null;
+			}
+			pos = end + 1;
+			return value;
+		}
+
+		private void skipSpaces() {
+			while (pos < xpath.length() && xpath.charAt(pos) == ' ') {
+				pos++;
+			}
+		}
+
+		private static boolean isIdentifier(String value) {
+			if (value.length() == 0 || !Character.isLetter(value.charAt(0))) {
+				return false;
+			}
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-')) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+}
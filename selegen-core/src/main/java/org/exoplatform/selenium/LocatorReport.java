@@ -0,0 +1,122 @@
+package org.exoplatform.selenium;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.exoplatform.selenium.runtime.CsvReport;
+
+/**
+ * Collects the element locators of the suite, to rank them by expected cost times number of uses in a
+ * CSV file: the first lines are the recordings to fix first.
+ */
+public class LocatorReport {
+
+	/**
+	 * The uses of a locator.
+	 */
+	static class Usage {
+
+		final String locator;
+
+		final LocatorAnalyzer.Kind kind;
+
+		final int cost;
+
+		final String rewrite;
+
+		int uses;
+
+		String firstUse;
+
+		Usage(String locator) {
+			this.locator = locator;
+			this.kind = LocatorAnalyzer.getKind(locator);
+			this.cost = LocatorAnalyzer.getCost(locator);
+			this.rewrite = LocatorAnalyzer.rewrite(locator);
+		}
+
+		int getTotalCost() {
+			return cost * uses;
+		}
+
+	}
+
+	private final Map<String, Usage> usages = new HashMap<String, Usage>();
+
+	/**
+	 * Records the locators of the commands of a script, as recorded.
+	 */
+	public synchronized void record(String scriptFile, List<SeleneseCommand> commands) {
+		for (SeleneseCommand command : commands) {
+			if (LocatorAnalyzer.isLocatorTarget(command.getName())) {
+				record(scriptFile, command, command.getTarget());
+			}
+			if (LocatorAnalyzer.isLocatorValue(command.getName())) {
+				record(scriptFile, command, command.getValue());
+			}
+		}
+	}
+
+	private void record(String scriptFile, SeleneseCommand command, String locator) {
+		if (locator.length() == 0) {
+			return;
+		}
+		Usage usage = usages.get(locator);
+		if (usage == null) {
+			usage = new Usage(locator);
+			usages.put(locator, usage);
+		}
+		usage.uses++;
+		String use = scriptFile + ":" + command.getLine();
+		if (usage.firstUse == null || use.compareTo(usage.firstUse) < 0) {
+			usage.firstUse = use;
+		}
+	}
+
+	public synchronized List<Usage> getRanked() {
+		List<Usage> ranked = new ArrayList<Usage>(usages.values());
+		Collections.sort(ranked, new Comparator<Usage>() {
+			public int compare(Usage u1, Usage u2) {
+				if (u1.getTotalCost() != u2.getTotalCost()) {
+					return u2.getTotalCost() - u1.getTotalCost();
+				}
+				return u1.locator.compareTo(u2.locator);
+			}
+		});
+		return ranked;
+	}
+
+	public void write(File file) throws IOException {
+		List<Usage> ranked = getRanked();
+		List<String> lines = new ArrayList<String>();
+		lines.add("totalCost,cost,uses,kind,locator,rewrite,firstUse");
+		int xpaths = 0;
+		int rewritable = 0;
+		for (Usage usage : ranked) {
+			lines.add(usage.getTotalCost() + "," + usage.cost + "," + usage.uses + "," + usage.kind + ","
+			      + CsvReport.escape(usage.locator) + "," + CsvReport.escape(usage.rewrite != null ? usage.rewrite : "") + ","
+			      + CsvReport.escape(usage.firstUse));
+			if (usage.kind == LocatorAnalyzer.Kind.XPATH) {
+				xpaths++;
+				if (usage.rewrite != null) {
+					rewritable++;
+				}
+			}
+		}
+		FileUtils.writeLines(file, "UTF-8", lines);
+		System.out.println("[INFO] " + ranked.size() + " locators (" + xpaths + " XPaths, " + rewritable
+		      + " rewritable with -Dselegen.optimize=locators), ranked in " + file);
+		for (Usage usage : ranked.subList(0, Math.min(5, ranked.size()))) {
+			System.out.println("[INFO]   " + usage.getTotalCost() + " = " + usage.cost + " x " + usage.uses + " : "
+			      + usage.locator);
+		}
+	}
+
+}
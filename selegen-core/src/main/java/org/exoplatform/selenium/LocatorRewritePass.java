@@ -0,0 +1,45 @@
+package org.exoplatform.selenium;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the simple XPath locators of the commands by the equivalent id=, name= or css= locators,
+ * see {@link LocatorAnalyzer#rewrite(String)}.
+ */
+public class LocatorRewritePass implements OptimizationPass {
+
+	public String getName() {
+		return "locators";
+	}
+
+	public List<SeleneseCommand> apply(String scriptFile, List<SeleneseCommand> commands) {
+		List<SeleneseCommand> result = new ArrayList<SeleneseCommand>(commands.size());
+		for (SeleneseCommand command : commands) {
+			String target = command.getTarget();
+			String value = command.getValue();
+			if (LocatorAnalyzer.isLocatorTarget(command.getName())) {
+				target = rewrite(scriptFile, command, target);
+			}
+			if (LocatorAnalyzer.isLocatorValue(command.getName())) {
+				value = rewrite(scriptFile, command, value);
+			}
+			if (target != command.getTarget() || value != command.getValue()) {
+				command = new SeleneseCommand(command.getIndex(), command.getLine(), command.getName(), target, value);
+			}
+			result.add(command);
+		}
+		return result;
+	}
+
+	private String rewrite(String scriptFile, SeleneseCommand command, String locator) {
+		String rewritten = LocatorAnalyzer.rewrite(locator);
+		if (rewritten == null) {
+			return locator;
+		}
+		OptimizationPasses.report(scriptFile, command, command.getName() + " \"" + locator + "\" rewritten as \""
+		      + rewritten + "\"");
+		return rewritten;
+	}
+
+}
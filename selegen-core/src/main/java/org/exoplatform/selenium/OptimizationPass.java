@@ -0,0 +1,23 @@
+package org.exoplatform.selenium;
+
+import java.util.List;
+
+/**
+ * Rewrites the commands of a script before their code is generated, for instance to remove a command
+ * whose effect is already obtained by another one. Each rewrite is reported as
+ * <code>[OPT] script:line message</code>, so that it can be audited.
+ * <p>
+ * The passes rely on the semantics of the built-in commands of {@link DefaultCommandEmitters}.
+ */
+public interface OptimizationPass {
+
+	/** Name of the pass in the selegen.optimize option. */
+	String getName();
+
+	/**
+	 * Returns the rewritten commands, the given list being left unchanged. A rewritten command keeps the
+	 * index of the recorded one.
+	 */
+	List<SeleneseCommand> apply(String scriptFile, List<SeleneseCommand> commands);
+
+}
@@ -0,0 +1,70 @@
+package org.exoplatform.selenium;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The optimization passes known by the generator, chosen with the selegen.optimize option: a comma
+ * separated list of pass names, <code>all</code> or <code>none</code>.
+ */
+public class OptimizationPasses {
+
+	private OptimizationPasses() {
+	}
+
+	public static List<OptimizationPass> getAll() {
+		return Arrays.<OptimizationPass> asList(new RedundantMouseOverPass(), new WaitFoldingPass(),
+		      new LocatorRewritePass(), new BatchPass());
+	}
+
+	public static List<OptimizationPass> parse(String names) {
+		List<OptimizationPass> passes = new ArrayList<OptimizationPass>();
+		if (names == null || names.trim().length() == 0 || names.trim().equals("none")) {
+			return passes;
+		}
+		if (names.trim().equals("all")) {
+			return getAll();
+		}
+		for (String name : names.split(",")) {
+			name = name.trim();
+			if (name.length() == 0) {
+				continue;
+			}
+			OptimizationPass pass = get(name);
+			if (pass == null) {
+				throw new IllegalArgumentException("Unknown optimization " + name + ", expected one of " + getNames(getAll()));
+			}
+			passes.add(pass);
+		}
+		return passes;
+	}
+
+	private static OptimizationPass get(String name) {
+		for (OptimizationPass pass : getAll()) {
+			if (pass.getName().equals(name)) {
+				return pass;
+			}
+		}
+		return null;
+	}
+
+	public static String getNames(List<OptimizationPass> passes) {
+		StringBuilder names = new StringBuilder();
+		for (OptimizationPass pass : passes) {
+			if (names.length() > 0) {
+				names.append(',');
+			}
+			names.append(pass.getName());
+		}
+		return names.toString();
+	}
+
+	/**
+	 * Reports a rewrite of a pass.
+	 */
+	static void report(String scriptFile, SeleneseCommand command, String message) {
+		System.out.println("[OPT] " + scriptFile + ":" + command.getLine() + " " + message);
+	}
+
+}
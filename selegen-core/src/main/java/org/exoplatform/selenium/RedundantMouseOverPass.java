@@ -0,0 +1,52 @@
+package org.exoplatform.selenium;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes a recorded mouseOver followed by a command moving the mouse over the same element, as the
+ * clicks are generated with their own mouseOver.
+ */
+public class RedundantMouseOverPass implements OptimizationPass {
+
+	/** The commands starting with a mouseOver of their target. */
+	private static final Set<String> HOVERING = new HashSet<String>(Arrays.asList("mouseOver", "click", "clickAt",
+	      "clickAndWait", "clickAtAndWait"));
+
+	public String getName() {
+		return "mouseOver";
+	}
+
+	public List<SeleneseCommand> apply(String scriptFile, List<SeleneseCommand> commands) {
+		List<SeleneseCommand> result = new ArrayList<SeleneseCommand>(commands.size());
+		for (int i = 0; i < commands.size(); i++) {
+			SeleneseCommand command = commands.get(i);
+			if (command.getName().equals("mouseOver")) {
+				SeleneseCommand next = next(commands, i);
+				if (next != null && HOVERING.contains(next.getName()) && next.getTarget().equals(command.getTarget())) {
+					OptimizationPasses.report(scriptFile, command, "mouseOver \"" + command.getTarget()
+					      + "\" removed, done again by the " + next.getName() + " of line " + next.getLine());
+					continue;
+				}
+			}
+			result.add(command);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the next command which is not empty, or null.
+	 */
+	static SeleneseCommand next(List<SeleneseCommand> commands, int index) {
+		for (int i = index + 1; i < commands.size(); i++) {
+			if (commands.get(i).getName().length() > 0) {
+				return commands.get(i);
+			}
+		}
+		return null;
+	}
+
+}
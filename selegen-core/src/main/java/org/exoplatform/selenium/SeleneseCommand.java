@@ -0,0 +1,53 @@
+package org.exoplatform.selenium;
+
+/**
+ * One step of a recorded script: the command and its target and value parameters.
+ */
+public class SeleneseCommand {
+
+	private final int index;
+
+	private final int line;
+
+	private final String name;
+
+	private final String target;
+
+	private final String value;
+
+	public SeleneseCommand(int index, int line, String name, String target, String value) {
+		this.index = index;
+		this.line = line;
+		this.name = name;
+		this.target = target;
+		this.value = value;
+	}
+
+	/** Position of the step in its script, starting at 1. */
+	public int getIndex() {
+		return index;
+	}
+
+	/** Line of the step in the script file. */
+	public int getLine() {
+		return line;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getTarget() {
+		return target;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		return name + " | " + target + " | " + value;
+	}
+
+}
@@ -0,0 +1,17 @@
+package org.exoplatform.selenium;
+
+import java.io.IOException;
+
+/**
+ * Receives the content of a recorded script while it is parsed by {@link SeleneseParser}.
+ */
+public interface SeleneseHandler {
+
+	/**
+	 * Called before the first step with the html title and the table caption of the script.
+	 */
+	void header(String title, String caption) throws IOException;
+
+	void command(SeleneseCommand command) throws IOException;
+
+}
@@ -0,0 +1,133 @@
+package org.exoplatform.selenium;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A Macro_*.html script, run by the scripts including it with <code>include | Macro_Name |</code>. The
+ * macros of a package are generated once, as static methods of its SeleneseMacros class, and the tests
+ * call them instead of repeating their commands.
+ * <p>
+ * A macro reads the variables of the including script, given to its method as parameters, and the
+ * variables it stores are its own.
+ */
+public class SeleneseMacro {
+
+	public static final String INCLUDE = "include";
+
+	public static final String MACRO_PATTERN = "Macro_";
+
+	public static final String CLASS_NAME = "SeleneseMacros";
+
+	/** The path of the script in the suite, such as <code>portal/Macro_Login.html</code>. */
+	private final String script;
+
+	/** The names of the variables read before being stored. */
+	private final List<String> parameters;
+
+	private final String code;
+
+	private final int untranslatedCount;
+
+	public SeleneseMacro(String script, List<String> parameters, String code, int untranslatedCount) {
+		this.script = script;
+		this.parameters = parameters;
+		this.code = code;
+		this.untranslatedCount = untranslatedCount;
+	}
+
+	public String getScript() {
+		return script;
+	}
+
+	public List<String> getParameters() {
+		return parameters;
+	}
+
+	public int getUntranslatedCount() {
+		return untranslatedCount;
+	}
+
+	/**
+	 * Returns the name of the generated method: macro followed by the name of the script without its
+	 * prefix, as test followed by the name of the Test_*.html scripts.
+	 */
+	public String getMethodName() {
+		String name = script.substring(script.lastIndexOf('/') + 1, script.lastIndexOf('.'));
+		return "macro" + name.substring(MACRO_PATTERN.length());
+	}
+
+	/**
+	 * Returns the qualified name of the class of the macros of the package.
+	 */
+	public String getClassName() {
+		int slash = script.lastIndexOf('/');
+		return slash == -1 ? CLASS_NAME : script.substring(0, slash).replace('/', '.') + "." + CLASS_NAME;
+	}
+
+	/**
+	 * Returns the code calling the macro, the parameters being the variables of the same name.
+	 *
+	 * @param locals the Java identifiers of the variables stored by the caller, the other ones being
+	 *           global
+	 */
+	public String getCall(Set<String> locals) {
+		StringBuilder call = new StringBuilder(getClassName()).append('.').append(getMethodName()).append(
+		      "(selenium, timeout");
+		for (String parameter : parameters) {
+			call.append(", ").append(VariableInterpolator.toReference(parameter, locals));
+		}
+		return call.append(");\n").toString();
+	}
+
+	/**
+	 * Returns the method of the macro, its parameters being final as they can be read by the conditions of
+	 * the waits.
+	 */
+	public String getMethod() {
+		StringBuilder method = new StringBuilder();
+		method.append("// ").append(script).append("\n");
+		method.append("public static void ").append(getMethodName()).append(
+		      "(final Selenium selenium, final String timeout");
+		for (String parameter : parameters) {
+			method.append(", final String ").append(VariableInterpolator.toIdentifier(parameter));
+		}
+		method.append(") throws InterruptedException {\n");
+		method.append(code);
+		return method.append("}\n\n").toString();
+	}
+
+	public static boolean isMacro(String fileName) {
+		return fileName.startsWith(MACRO_PATTERN) && fileName.endsWith(".html");
+	}
+
+	/**
+	 * Finds the macro named by the target of an include in the given directory, then in its parent
+	 * directories up to the suite.
+	 *
+	 * @param suite the root of the suite, null to look up to the root of the file system
+	 * @param name the name of the macro script, with or without .html
+	 * @return the macro script, or null when there is none
+	 */
+	public static File resolve(File suite, File directory, String name) {
+		name = name.trim();
+		if (!name.endsWith(".html")) {
+			name = name + ".html";
+		}
+		if (!isMacro(name)) {
+			return null;
+		}
+		for (File parent = directory; parent != null; parent = parent.getParentFile()) {
+			File macro = new File(parent, name);
+			if (macro.isFile()) {
+				return macro;
+			}
+			if (parent.equals(suite)) {
+				break;
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,163 @@
+package org.exoplatform.selenium;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringEscapeUtils;
+
+/**
+ * Reads a Selenium IDE recorded html in one pass, each row of the table body being handed to a
+ * {@link SeleneseHandler} as soon as it is read.
+ */
+public class SeleneseParser {
+
+	private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+	static {
+		// the xhtml DTD is not fetched, its entities are resolved as html ones
+		FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		FACTORY.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, Boolean.FALSE);
+	}
+
+	public void parse(File script, SeleneseHandler handler) throws IOException {
+		InputStream in = new FileInputStream(script);
+		try {
+			XMLStreamReader reader;
+			synchronized (FACTORY) {
+				reader = FACTORY.createXMLStreamReader(in);
+			}
+			try {
+				parse(reader, handler);
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			int line = e.getLocation() != null ? e.getLocation().getLineNumber() : -1;
+			throw new RuntimeException("Invalid script " + script + ":" + line + " : " + e.getMessage(), e);
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	private void parse(XMLStreamReader reader, SeleneseHandler handler) throws XMLStreamException, IOException {
+		String title = null;
+		String caption = null;
+		boolean inTitle = false;
+		boolean inHead = false;
+		boolean inBody = false;
+		boolean headerSent = false;
+
+		String[] cells = new String[3];
+		int cellCount = -1;
+		int rowLine = 0;
+		int count = 0;
+
+		StringBuilder text = null;
+		boolean layout = false;
+
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				String element = reader.getLocalName();
+				if (element.equals("title")) {
+					inTitle = true;
+					text = new StringBuilder();
+				} else if (element.equals("thead")) {
+					inHead = true;
+				} else if (element.equals("tbody")) {
+					inBody = true;
+					if (!headerSent) {
+						handler.header(title, caption);
+						headerSent = true;
+					}
+				} else if (element.equals("tr") && inBody) {
+					cells[0] = cells[1] = cells[2] = "";
+					cellCount = 0;
+					rowLine = reader.getLocation().getLineNumber();
+				} else if (element.equals("td") && (inHead || cellCount >= 0)) {
+					text = new StringBuilder();
+					layout = false;
+				} else if (element.equals("br") && text != null) {
+					text.append('\n');
+				}
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+			case XMLStreamConstants.SPACE:
+				if (text != null) {
+					layout |= appendText(text, reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				}
+				break;
+			case XMLStreamConstants.ENTITY_REFERENCE:
+				if (text != null) {
+					text.append(StringEscapeUtils.unescapeHtml("&" + reader.getLocalName() + ";"));
+				}
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				element = reader.getLocalName();
+				if (element.equals("title") && inTitle) {
+					title = text.toString().trim();
+					inTitle = false;
+					text = null;
+				} else if (element.equals("thead")) {
+					inHead = false;
+				} else if (element.equals("tbody")) {
+					inBody = false;
+				} else if (element.equals("td") && text != null) {
+					String cell = layout ? trim(text) : text.toString();
+					if (inHead) {
+						caption = cell.trim();
+					} else if (cellCount < cells.length) {
+						cells[cellCount++] = cell;
+					}
+					text = null;
+				} else if (element.equals("tr") && cellCount >= 0) {
+					handler.command(new SeleneseCommand(++count, rowLine, cells[0].trim(), cells[1], cells[2]));
+					cellCount = -1;
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Appends the text of a cell, the line breaks of a reformatted file being dropped as the ones of
+	 * the value are recorded as &lt;br /&gt;. Returns true when a line break was dropped.
+	 */
+	private boolean appendText(StringBuilder text, char[] chars, int start, int length) {
+		boolean layout = false;
+		for (int i = start; i < start + length; i++) {
+			char c = chars[i];
+			if (c == '\n' || c == '\r') {
+				layout = true;
+			} else {
+				text.append(c);
+			}
+		}
+		return layout;
+	}
+
+	/**
+	 * Removes the indentation around the value of a reformatted cell, keeping its &lt;br /&gt;.
+	 */
+	private String trim(StringBuilder text) {
+		int x = 0;
+		int y = text.length();
+		while (x < y && (text.charAt(x) == ' ' || text.charAt(x) == '\t')) {
+			x++;
+		}
+		while (y > x && (text.charAt(y - 1) == ' ' || text.charAt(y - 1) == '\t')) {
+			y--;
+		}
+		return text.substring(x, y);
+	}
+
+}
@@ -2,9 +2,31 @@ package org.exoplatform.selenium;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.lang.StringEscapeUtils;
+import org.exoplatform.selenium.runtime.CsvReport;
+import org.exoplatform.selenium.runtime.ElementCache;
 
 /**
  * Transforms the Selenium IDE recorded html to a corresponding JUnit class.
@@ -13,12 +35,85 @@ public class SeleniumTestCaseGenerator {
 
 	private static final String TEST_PATTERN = "Test_";
 
-	private static int testsNumber = 0;
-	private static int testsSuitesNumber = 0;
+	/** The extension of the dataset of a Test_*.html script, next to it. */
+	private static final String DATASET_EXTENSION = ".csv";
+
+	/** The members of the tests which cannot be variables of a dataset. */
+	private static final Set<String> RESERVED = new HashSet<String>(Arrays.asList("driver", "selenium", "timeout",
+	      "timeoutSecInt", "host", "hostPort", "speed", "steps", "row"));
+
+	/** The extension of the manifest entries of the SeleneseMacros classes. */
+	private static final String MACROS_EXTENSION = ".macros";
+
+	/** The declaration of a stored variable by the emitters, made a field in the checkpointed tests. */
+	private static final Pattern VARIABLE_DECLARATION = Pattern.compile("(?m)^final String ([\\w$]+) = ");
+
+	/** The commands loading a page, whose Navigation Timing is recorded with -Dselegen.navigationTiming=true. */
+	private static final Set<String> NAVIGATIONS = new HashSet<String>(Arrays.asList("open", "clickAndWait",
+	      "clickAtAndWait", "selectAndWait", "refresh"));
+
+	private final AtomicInteger testsNumber = new AtomicInteger();
+	private final AtomicInteger testsUpToDate = new AtomicInteger();
+	private final AtomicInteger testsSuitesNumber = new AtomicInteger();
+
+	/** The scripts generated by the current generation. */
+	private final List<String> generatedScripts = Collections.synchronizedList(new ArrayList<String>());
 
 	private String basedir;
 	private String outputdir;
 
+	/** Number of workers translating the suite, 1 keeps the sequential generation. */
+	private int threads = 1;
+
+	/** Skips the scripts which did not change since the previous generation. */
+	private boolean incremental = true;
+
+	private GenerationManifest manifest;
+
+	private TestSourceSink sink;
+
+	private CommandEmitterRegistry emitters;
+
+	private final VariableInterpolator interpolator = new VariableInterpolator();
+
+	/** Reports all the untranslated commands at the end of the generation instead of failing on the first one. */
+	private boolean reportUntranslated;
+
+	private final List<String> untranslated = Collections.synchronizedList(new ArrayList<String>());
+
+	/** Generates tests sharing their browser through SharedSessionTestCase. */
+	private boolean reuseSession;
+
+	/** Generates tests timing each of their steps with a StepTimer. */
+	private boolean instrument;
+
+	/** Generates tests reading the Navigation Timing of each page they load with NavigationTiming. */
+	private boolean navigationTiming;
+
+	/** Generates tests keeping the elements found by their commands in an ElementCache. */
+	private boolean elementCache;
+
+	/** Number of commands of the segments run by a CheckpointRunner, 0 generating one block of commands. */
+	private int checkpoints;
+
+	/** Passes rewriting the commands of each script before they are generated. */
+	private List<OptimizationPass> optimizations = new ArrayList<OptimizationPass>();
+
+	private final AtomicInteger commandsOptimized = new AtomicInteger();
+
+	/** Ranks the locators of the suite in this file, when set. */
+	private File locatorReportFile;
+
+	private LocatorReport locatorReport;
+
+	/** The macros translated by the current generation, by script. */
+	private final Map<String, SeleneseMacro> macros = new HashMap<String, SeleneseMacro>();
+
+	private final Set<String> translatingMacros = new HashSet<String>();
+
+	/** The hash of the macros of each directory and of its parents, "" when there is none. */
+	private final Map<String, String> macrosHashes = new ConcurrentHashMap<String, String>();
+
 	public static void main(String[] args) throws Exception {
 		SeleniumTestCaseGenerator seleneseToJavaBuilder = null;
 		if (args.length == 1) {
@@ -29,22 +124,290 @@ public class SeleniumTestCaseGenerator {
 			throw new IllegalArgumentException("SeleneseToJavaBuilder suitePath [Target] [TestSpeed]");
 		}
 		seleneseToJavaBuilder.run();
-		System.out
-		      .println("Done : " + testsNumber + " tests generated, " + testsSuitesNumber + " tests suites generated");
+		System.out.println("Done : " + seleneseToJavaBuilder.getTestsNumber() + " tests generated, "
+		      + seleneseToJavaBuilder.getTestsUpToDate() + " tests up to date, "
+		      + seleneseToJavaBuilder.getTestsSuitesNumber() + " tests suites generated");
 	}
 
 	public SeleniumTestCaseGenerator(String basedir, String outputdir) throws Exception {
 		this.basedir = basedir;
 		this.outputdir = outputdir;
+		setThreads(Integer.getInteger("selegen.threads", 1));
+		setIncremental(Boolean.valueOf(System.getProperty("selegen.incremental", "true")));
+		setReportUntranslated(Boolean.getBoolean("selegen.reportUntranslated"));
+		setReuseSession(Boolean.getBoolean("selegen.reuseSession"));
+		setInstrument(Boolean.getBoolean("selegen.instrument"));
+		setNavigationTiming(Boolean.getBoolean("selegen.navigationTiming"));
+		setElementCache(Boolean.getBoolean("selegen.elementCache"));
+		setCheckpoints(Integer.getInteger("selegen.checkpoints", 0));
+		setOptimizations(OptimizationPasses.parse(System.getProperty("selegen.optimize")));
+		String locatorReport = System.getProperty("selegen.locatorReport");
+		setLocatorReport(locatorReport != null && locatorReport.length() > 0 ? new File(locatorReport) : null);
+		setEmitters(CommandEmitterRegistry.createDefault());
+		setSink(new FileSourceSink(new File(outputdir)));
+	}
+
+	/**
+	 * Sets the number of workers used to translate the suite. A value lower than 1 uses one worker per
+	 * available processor.
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
 	}
 
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	public void setReportUntranslated(boolean reportUntranslated) {
+		this.reportUntranslated = reportUntranslated;
+	}
+
+	public boolean isReportUntranslated() {
+		return reportUntranslated;
+	}
+
+	public void setReuseSession(boolean reuseSession) {
+		this.reuseSession = reuseSession;
+	}
+
+	public boolean isReuseSession() {
+		return reuseSession;
+	}
+
+	public void setInstrument(boolean instrument) {
+		this.instrument = instrument;
+	}
+
+	public boolean isInstrument() {
+		return instrument;
+	}
+
+	public void setNavigationTiming(boolean navigationTiming) {
+		this.navigationTiming = navigationTiming;
+	}
+
+	public boolean isNavigationTiming() {
+		return navigationTiming;
+	}
+
+	public void setElementCache(boolean elementCache) {
+		this.elementCache = elementCache;
+	}
+
+	public boolean isElementCache() {
+		return elementCache;
+	}
+
+	/**
+	 * Splits the tests into segments of the given number of commands, retried and resumed from their
+	 * checkpoint by a CheckpointRunner. 0, the default, generates the commands in one block.
+	 */
+	public void setCheckpoints(int checkpoints) {
+		this.checkpoints = Math.max(checkpoints, 0);
+	}
+
+	public int getCheckpoints() {
+		return checkpoints;
+	}
+
+	public void setOptimizations(List<OptimizationPass> optimizations) {
+		this.optimizations = optimizations;
+	}
+
+	public List<OptimizationPass> getOptimizations() {
+		return optimizations;
+	}
+
+	/**
+	 * Sets the CSV file ranking the locators of the suite by expected cost, see {@link LocatorReport}.
+	 */
+	public void setLocatorReport(File locatorReportFile) {
+		this.locatorReportFile = locatorReportFile;
+	}
+
+	public File getLocatorReport() {
+		return locatorReportFile;
+	}
+
+	/**
+	 * Returns the number of commands removed by the optimizations.
+	 */
+	public int getCommandsOptimized() {
+		return commandsOptimized.get();
+	}
+
+	public void setEmitters(CommandEmitterRegistry emitters) {
+		this.emitters = emitters;
+	}
+
+	public CommandEmitterRegistry getEmitters() {
+		return emitters;
+	}
+
+	/**
+	 * Sets where the tests are generated, the output directory then only keeping the manifest.
+	 */
+	public void setSink(TestSourceSink sink) {
+		this.sink = sink;
+	}
+
+	public TestSourceSink getSink() {
+		return sink;
+	}
+
+	/**
+	 * Returns the untranslated commands met when {@link #isReportUntranslated()}, as
+	 * <code>script:line : message</code>.
+	 */
+	public List<String> getUntranslated() {
+		List<String> result = new ArrayList<String>(untranslated);
+		Collections.sort(result);
+		return result;
+	}
+
+	public int getTestsNumber() {
+		return testsNumber.get();
+	}
+
+	/**
+	 * Returns the paths of the scripts generated by the last run, the up to date ones being left out.
+	 */
+	public List<String> getGeneratedScripts() {
+		List<String> result = new ArrayList<String>(generatedScripts);
+		Collections.sort(result);
+		return result;
+	}
+
+	public int getTestsUpToDate() {
+		return testsUpToDate.get();
+	}
+
+	public int getTestsSuitesNumber() {
+		return testsSuitesNumber.get();
+	}
+
+	/**
+	 * Generates the suite, the counters and the untranslated commands being the ones of this run, so that
+	 * a generator can run again when the scripts change.
+	 */
 	public void run() throws Exception {
-		generate(new File(basedir), "");
+		reset();
+		manifest = incremental ? new GenerationManifest(new File(outputdir), getGeneratorSignature()) : null;
+		locatorReport = locatorReportFile != null ? new LocatorReport() : null;
+		macros.clear();
+		macrosHashes.clear();
+		boolean completed = false;
+		try {
+			if (threads > 1) {
+				generateParallel(new File(basedir));
+			} else {
+				generate(new File(basedir), "");
+			}
+			completed = true;
+			if (locatorReport != null) {
+				locatorReport.write(locatorReportFile);
+			}
+		} finally {
+			if (manifest != null) {
+				if (completed) {
+					removeGeneratedFiles(manifest.getRemovedScripts());
+				} else {
+					// the scripts not reached, or removed, are left to the next run
+					manifest.keepPrevious();
+				}
+				manifest.save();
+			}
+		}
+		reportRun();
+	}
+
+	/**
+	 * Generates some Test_*.html scripts of the suite only, given by their path in the suite such as
+	 * <code>portal/Test_Login.html</code>, when the other scripts and the macros did not change since the
+	 * previous run: the macros they include are the ones translated by it.
+	 */
+	public void run(Collection<String> scripts) throws Exception {
+		reset();
+		manifest = incremental ? new GenerationManifest(new File(outputdir), getGeneratorSignature()) : null;
+		// the ranking needs all the scripts
+		locatorReport = null;
+		try {
+			for (String script : scripts) {
+				script = script.replaceAll(replaceSeparatorPattern, "/");
+				int x = script.lastIndexOf('/');
+				generateFile(script, x == -1 ? "" : script.substring(0, x).replace('/', '.'));
+			}
+		} finally {
+			if (manifest != null) {
+				manifest.keepPrevious();
+				manifest.save();
+			}
+		}
+		reportRun();
+	}
+
+	private void reset() {
+		testsNumber.set(0);
+		testsUpToDate.set(0);
+		testsSuitesNumber.set(0);
+		commandsOptimized.set(0);
+		untranslated.clear();
+		generatedScripts.clear();
+	}
+
+	private void reportRun() {
+		if (commandsOptimized.get() > 0) {
+			System.out.println("[INFO] " + commandsOptimized.get() + " commands removed by the optimizations "
+			      + OptimizationPasses.getNames(optimizations));
+		}
+		if (!untranslated.isEmpty()) {
+			for (String message : getUntranslated()) {
+				System.err.println("[ERROR] " + message);
+			}
+			throw new RuntimeException(untranslated.size() + " Selenium functions not implemented");
+		}
+	}
+
+	/**
+	 * Returns what, besides the scripts, the generated code depends on. A change of the signature
+	 * regenerates the whole suite.
+	 */
+	protected String getGeneratorSignature() throws IOException {
+		StringBuffer signature = new StringBuffer(GenerationManifest.codeHash(SeleniumTestCaseGenerator.class));
+		if (getClass() != SeleniumTestCaseGenerator.class) {
+			signature.append(",").append(GenerationManifest.codeHash(getClass()));
+		}
+		for (CommandEmitterProvider provider : emitters.getProviders()) {
+			signature.append(",").append(GenerationManifest.codeHash(provider.getClass()));
+		}
+		signature.append(";reuseSession=").append(reuseSession);
+		signature.append(";instrument=").append(instrument);
+		signature.append(";navigationTiming=").append(navigationTiming);
+		signature.append(";elementCache=").append(elementCache);
+		signature.append(";checkpoints=").append(checkpoints);
+		signature.append(";optimize=").append(OptimizationPasses.getNames(optimizations));
+		return signature.toString();
+	}
+
+	private void removeGeneratedFiles(List<String> removedScripts) {
+		for (String script : removedScripts) {
+			sink.remove(getTestName(script));
+		}
 	}
 
 	public void generate(File directoryFile, String path) throws Exception {
-		File[] files = directoryFile.listFiles();
+		File[] files = listFiles(directoryFile);
 		String testPackagePath = path.replaceAll(replaceSeparatorPattern, ".");
+		generateMacros(files, path, testPackagePath);
 		for (int j = 0; j < files.length; j++) {
 			File file = files[j];
 			String filePath = path.length()>0 ? path + File.separator + file.getName() : file.getName();
@@ -56,6 +419,70 @@ public class SeleniumTestCaseGenerator {
 		}
 	}
 
+	/**
+	 * Generates the suite with a pool of {@link #getThreads()} workers. The tree is walked by the calling
+	 * thread and every Test_*.html is translated by its own task as soon as its directory is listed, the
+	 * output layout being the same as the sequential {@link #generate(File, String)}.
+	 */
+	public void generateParallel(File directoryFile) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> tasks = new ArrayList<Future<?>>();
+			submit(executor, directoryFile, "", tasks);
+			for (Future<?> task : tasks) {
+				try {
+					task.get();
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof Exception) {
+						throw (Exception) cause;
+					} else if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw e;
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void submit(ExecutorService executor, File directoryFile, String path, List<Future<?>> tasks) {
+		final File[] files = listFiles(directoryFile);
+		final String testPackagePath = path.replaceAll(replaceSeparatorPattern, ".");
+		final String macrosPath = path;
+		tasks.add(executor.submit(new Callable<Object>() {
+			public Object call() throws Exception {
+				generateMacros(files, macrosPath, testPackagePath);
+				return null;
+			}
+		}));
+		for (int j = 0; j < files.length; j++) {
+			File file = files[j];
+			final String filePath = path.length()>0 ? path + File.separator + file.getName() : file.getName();
+			if (file.isDirectory() && !file.getName().startsWith(".")) {
+				submit(executor, new File(directoryFile, file.getName()), filePath, tasks);
+			} else if (file.getName().endsWith(".html") && file.getName().startsWith(TEST_PATTERN)) {
+				tasks.add(executor.submit(new Callable<Object>() {
+					public Object call() throws Exception {
+						generateFile(filePath, testPackagePath);
+						return null;
+					}
+				}));
+			}
+		}
+	}
+
+	private File[] listFiles(File directoryFile) {
+		File[] files = directoryFile.listFiles();
+		if (files == null) {
+			throw new IllegalArgumentException("Not a suite directory : " + directoryFile);
+		}
+		// sorted so that the generation order and the logs do not depend on the file system
+		Arrays.sort(files);
+		return files;
+	}
+
 	public void generateFile(String seleniumFile, String testPackagePath) throws Exception {
 		seleniumFile = seleniumFile.replaceAll(replaceSeparatorPattern, "/");
 
@@ -63,37 +490,250 @@ public class SeleniumTestCaseGenerator {
 		int y = seleniumFile.indexOf(".");
 		String testName = seleniumFile.substring(x + 1, y);
 		String testMethodName = "test" + testName.substring(5);
-		String testFileName = outputdir + "/" + seleniumFile.substring(0, y) + ".java";
+		String test = getTestName(seleniumFile);
+
+		File dataset = new File(basedir, test + DATASET_EXTENSION);
+		if (!dataset.isFile()) {
+			dataset = null;
+		}
+
+		String hash = null;
+		if (manifest != null) {
+			hash = GenerationManifest.hash(new File(basedir, seleniumFile));
+			if (dataset != null) {
+				hash = GenerationManifest.hash((hash + GenerationManifest.hash(dataset)).getBytes("UTF-8"));
+			}
+			String macrosHash = getMacrosHash(x == -1 ? "" : seleniumFile.substring(0, x));
+			if (macrosHash.length() > 0) {
+				// the test is generated again when a macro it may include changes
+				hash = GenerationManifest.hash((hash + macrosHash).getBytes("UTF-8"));
+			}
+			if (manifest.isUpToDate(seleniumFile, hash, sink.exists(test))) {
+				if (locatorReport != null) {
+					// the report covers the whole suite
+					locatorReport.record(seleniumFile, parseCommands(new File(basedir, seleniumFile), null));
+				}
+				testsUpToDate.incrementAndGet();
+				return;
+			}
+		}
+
+		// Write each Test in one class
+		Writer out = sink.open(test);
+		int untranslatedCount;
+		try {
+			appendImports(out, testPackagePath);
+
+			Set<String> parameters = null;
+			if (dataset != null) {
+				// each row runs the test, the rows sharing their browser through the SessionPool
+				out.append("@org.junit.runner.RunWith(org.junit.runners.Parameterized.class)\n");
+				out.append("public class " + testName + " extends SharedSessionTestCase {\n\n");
+				parameters = appendParameters(out, seleniumFile, testName, dataset);
+				appendElementCache(out);
+			} else if (reuseSession) {
+				// the browser is managed by the base class
+				out.append("public class " + testName + " extends SharedSessionTestCase {\n\n");
+				appendElementCache(out);
+			} else {
+				out.append("public class " + testName + " {\n\n");
+
+				// setSpeed & setUp
+				appendCommonMethods(out);
+			}
+
+			// testMethod
+			untranslatedCount = appendTest(out, seleniumFile, testName, testMethodName, parameters);
+			out.append("}\n");
+			out.close();
+		} catch (Exception e) {
+			sink.abort(test, out);
+			throw e;
+		}
+		sink.commit(test, out);
+		// a test with untranslated commands is generated again until they are
+		if (manifest != null && untranslatedCount == 0) {
+			manifest.generated(seleniumFile, hash);
+		}
 
-		// Write each Test in one file
-		StringBuffer sb = new StringBuffer();
+		testsNumber.incrementAndGet();
+		generatedScripts.add(seleniumFile);
+	}
 
-sb.append("package " + testPackagePath + ";\n\n");
-sb.append("import static org.junit.Assert.*;\n\n");
-sb.append("import org.openqa.selenium.firefox.*;\n");
+	private String getTestName(String seleniumFile) {
+		return seleniumFile.substring(0, seleniumFile.indexOf("."));
+	}
 
-sb.append("import com.thoughtworks.selenium.Selenium;\n");
-sb.append("import org.openqa.selenium.*;\n");
-sb.append("import org.junit.*;\n\n");
+	private void appendImports(Writer out, String testPackagePath) throws IOException {
+		out.append("package " + testPackagePath + ";\n\n");
+		out.append("import static org.junit.Assert.*;\n\n");
+		out.append("import com.thoughtworks.selenium.Selenium;\n");
+		out.append("import org.openqa.selenium.*;\n");
+		out.append("import org.junit.*;\n");
+		out.append("import org.exoplatform.selenium.runtime.*;\n\n");
+	}
 
+	/**
+	 * Writes the SeleneseMacros class of the Macro_*.html scripts of a directory, if any.
+	 */
+	private void generateMacros(File[] files, String path, String testPackagePath) throws Exception {
+		path = path.replaceAll(replaceSeparatorPattern, "/");
+		List<String> macroFiles = new ArrayList<String>();
+		for (File file : files) {
+			if (file.isFile() && SeleneseMacro.isMacro(file.getName())) {
+				macroFiles.add(path.length() > 0 ? path + "/" + file.getName() : file.getName());
+			}
+		}
+		if (macroFiles.isEmpty()) {
+			return;
+		}
+		String test = (path.length() > 0 ? path + "/" : "") + SeleneseMacro.CLASS_NAME;
 
-sb.append("public class " + testName + " {\n\n");
+		String hash = null;
+		if (manifest != null) {
+			hash = getMacrosHash(path);
+			if (manifest.isUpToDate(test + MACROS_EXTENSION, hash, sink.exists(test))) {
+				if (locatorReport != null) {
+					for (String macroFile : macroFiles) {
+						locatorReport.record(macroFile, parseCommands(new File(basedir, macroFile), null));
+					}
+				}
+				return;
+			}
+		}
 
+		Writer out = sink.open(test);
+		int untranslatedCount = 0;
+		try {
+			appendImports(out, testPackagePath);
+			out.append("/**\n * The macros of the Macro_*.html scripts of the package, included by the tests.\n */\n");
+			out.append("public class " + SeleneseMacro.CLASS_NAME + " {\n\n");
+			out.append("private " + SeleneseMacro.CLASS_NAME + "() {\n}\n\n");
+			for (String macroFile : macroFiles) {
+				SeleneseMacro macro = getMacro(macroFile);
+				untranslatedCount += macro.getUntranslatedCount();
+				out.append(macro.getMethod());
+			}
+			out.append("}\n");
+			out.close();
+		} catch (Exception e) {
+			sink.abort(test, out);
+			throw e;
+		}
+		sink.commit(test, out);
+		if (manifest != null && untranslatedCount == 0) {
+			manifest.generated(test + MACROS_EXTENSION, hash);
+		}
+	}
 
-		// setSpeed & setUp
-		appendCommonMethods(sb);
+	/**
+	 * Returns the hash of the Macro_*.html scripts of the directory and of its parents, "" when there is
+	 * none.
+	 */
+	private String getMacrosHash(String path) throws IOException {
+		String hash = macrosHashes.get(path);
+		if (hash == null) {
+			int x = path.lastIndexOf('/');
+			String parentHash = path.length() == 0 ? "" : getMacrosHash(x == -1 ? "" : path.substring(0, x));
+			StringBuilder hashes = new StringBuilder(parentHash);
+			File[] files = new File(basedir, path).listFiles();
+			if (files != null) {
+				Arrays.sort(files);
+				for (File file : files) {
+					if (file.isFile() && SeleneseMacro.isMacro(file.getName())) {
+						hashes.append(file.getName()).append('=').append(GenerationManifest.hash(file)).append(';');
+					}
+				}
+			}
+			hash = hashes.length() == parentHash.length() ? parentHash : GenerationManifest.hash(hashes.toString()
+			      .getBytes("UTF-8"));
+			macrosHashes.put(path, hash);
+		}
+		return hash;
+	}
 
-		// testMethod
-		appendTest(sb, seleniumFile, testName, testMethodName);
-		sb.append("}\n");
+	/**
+	 * Returns the macro of the script, translating it when it is first included or generated.
+	 */
+	private SeleneseMacro getMacro(String macroFile) throws Exception {
+		synchronized (macros) {
+			SeleneseMacro macro = macros.get(macroFile);
+			if (macro == null) {
+				if (!translatingMacros.add(macroFile)) {
+					throw new RuntimeException("Recursive include of " + macroFile);
+				}
+				try {
+					macro = translateMacro(macroFile);
+				} finally {
+					translatingMacros.remove(macroFile);
+				}
+				macros.put(macroFile, macro);
+			}
+			return macro;
+		}
+	}
 
-		String content = sb.toString();
-		writeFile(testFileName, content);
+	/**
+	 * Translates the commands of a macro, its parameters being the variables it reads before storing them.
+	 */
+	private SeleneseMacro translateMacro(String macroFile) throws Exception {
+		List<SeleneseCommand> commands = parseCommands(new File(basedir, macroFile), null);
+		Map<Integer, SeleneseCommand> kept = optimize(macroFile, commands);
+		StringWriter code = new StringWriter();
+		Set<String> stored = new HashSet<String>();
+		Set<String> parameters = new LinkedHashSet<String>();
+		int untranslatedCount = 0;
+		for (SeleneseCommand recorded : commands) {
+			SeleneseCommand command = kept.get(recorded.getIndex());
+			if (command == null) {
+				appendRemoved(code, recorded);
+				continue;
+			}
+			List<String> read = new ArrayList<String>(interpolator.getVariables(command.getTarget()));
+			read.addAll(interpolator.getVariables(command.getValue()));
+			if (command.getName().equals(SeleneseMacro.INCLUDE)) {
+				String included = getMacroFile(macroFile, command.getTarget());
+				if (included != null) {
+					read.addAll(getMacro(included).getParameters());
+				}
+			}
+			for (String variable : read) {
+				if (!stored.contains(VariableInterpolator.toIdentifier(variable))) {
+					parameters.add(variable);
+				}
+			}
+			StringWriter commandCode = new StringWriter();
+			// the variables of a macro are stored by it or given by the caller
+			if (!appendCommand(commandCode, macroFile, command, false, null)) {
+				untranslatedCount++;
+			}
+			Matcher matcher = VARIABLE_DECLARATION.matcher(commandCode.getBuffer());
+			while (matcher.find()) {
+				stored.add(matcher.group(1));
+			}
+			code.append(commandCode.getBuffer());
+		}
+		return new SeleneseMacro(macroFile, new ArrayList<String>(parameters), code.toString(), untranslatedCount);
+	}
 
-		testsNumber++;
+	/**
+	 * Returns the path in the suite of the macro included by the script, or null when there is none.
+	 */
+	private String getMacroFile(String scriptFile, String name) {
+		int x = scriptFile.lastIndexOf('/');
+		File suite = new File(basedir);
+		File macro = SeleneseMacro.resolve(suite, x == -1 ? suite : new File(basedir, scriptFile.substring(0, x)), name);
+		if (macro == null) {
+			return null;
+		}
+		String macroFile = macro.getName();
+		for (File parent = macro.getParentFile(); !parent.equals(suite); parent = parent.getParentFile()) {
+			macroFile = parent.getName() + "/" + macroFile;
+		}
+		return macroFile;
 	}
 
-	private void appendCommonMethods(StringBuffer sb) {
+	private void appendCommonMethods(Writer sb) throws IOException {
                 sb.append("WebDriver driver;\n");
 		sb.append("Selenium selenium;\n\n");
 
@@ -112,8 +752,11 @@ sb.append(" public void startSelenium() {\n");
 		sb.append("  speed = System.getProperty(\"selenium.speed\", speed);\n");
         sb.append("  host = System.getProperty(\"selenium.host\", host);\n");
         sb.append("  hostPort = System.getProperty(\"selenium.host.port\", hostPort);\n");
-	sb.append("  driver = new FirefoxDriver();\n");
+	sb.append("  driver = DriverFactories.create();\n");
 	sb.append("  selenium = new WebDriverBackedSelenium(driver, \"http://\" + host + \":\" + hostPort);\n");
+		if (elementCache) {
+			sb.append("  ElementCache.install(selenium);\n");
+		}
 
 	sb.append("}\n\n");
 
@@ -122,459 +765,351 @@ sb.append("  public void stopSelenium() {\n");
 	sb.append("  driver.close();\n}\n\n");
 	}
 
-	private void appendTest(StringBuffer sb, String scriptFile, String testName, String testMethodName) throws Exception {
+	/**
+	 * Writes the installation of the ElementCache in the session of the base class, once it is acquired.
+	 */
+	private void appendElementCache(Writer sb) throws IOException {
+		if (elementCache) {
+			sb.append("@Before\n");
+			sb.append("public void cacheElements() {\n");
+			sb.append("ElementCache.install(selenium);\n");
+			sb.append("}\n\n");
+		}
+	}
+
+	/**
+	 * Writes the rows of the dataset of a test, given to its constructor by the Parameterized runner, and
+	 * returns the identifiers of its variables: the first line of the dataset names them, each following
+	 * line being a row of values.
+	 */
+	private Set<String> appendParameters(Writer sb, String scriptFile, String testName, File dataset)
+	      throws IOException {
+		List<String[]> lines = CsvReport.read(dataset);
+		Set<String> parameters = new LinkedHashSet<String>();
+		List<String[]> rows = new ArrayList<String[]>();
+		for (String[] line : lines) {
+			if (line.length == 1 && line[0].trim().length() == 0) {
+				continue;
+			}
+			if (parameters.isEmpty()) {
+				for (String name : line) {
+					String parameter = VariableInterpolator.toIdentifier(name.trim());
+					if (RESERVED.contains(parameter) || !parameters.add(parameter)) {
+						throw new RuntimeException("Invalid variable " + name + " in the dataset of " + scriptFile);
+					}
+				}
+			} else if (line.length != parameters.size()) {
+				throw new RuntimeException("The dataset of " + scriptFile + " has a row of " + line.length
+				      + " values instead of " + parameters.size());
+			} else {
+				rows.add(line);
+			}
+		}
+		if (rows.isEmpty()) {
+			throw new RuntimeException("The dataset of " + scriptFile + " has no row");
+		}
+		System.out.println("[INFO] " + scriptFile + " runs with the " + rows.size() + " rows of " + dataset.getName());
+
+		sb.append("@org.junit.runners.Parameterized.Parameters\n");
+		sb.append("public static java.util.Collection<Object[]> data() {\n");
+		sb.append("return java.util.Arrays.asList(new Object[][] {\n");
+		for (int i = 0; i < rows.size(); i++) {
+			sb.append("{" + i);
+			for (String value : rows.get(i)) {
+				sb.append(", \"" + VariableInterpolator.escape(value) + "\"");
+			}
+			sb.append("},\n");
+		}
+		sb.append("});\n}\n\n");
+
+		sb.append("int row;\n");
+		for (String parameter : parameters) {
+			sb.append("String " + parameter + ";\n");
+		}
+		sb.append("\npublic " + testName + "(int row");
+		for (String parameter : parameters) {
+			sb.append(", String " + parameter);
+		}
+		sb.append(") {\nthis.row = row;\n");
+		for (String parameter : parameters) {
+			sb.append("this." + parameter + " = " + parameter + ";\n");
+		}
+		sb.append("}\n\n");
+		return parameters;
+	}
+
+	/**
+	 * Returns the Java expression of the name of the test in the reports, followed by the row of its
+	 * dataset, if any.
+	 */
+	private String getTestLiteral(String scriptFile, Set<String> parameters) {
+		String test = getTestName(scriptFile).replace('/', '.');
+		return parameters == null ? "\"" + test + "\"" : "\"" + test + "[\" + row + \"]\"";
+	}
+
+	/**
+	 * Writes the test method, returning the number of commands which were not translated.
+	 *
+	 * @param parameters the variables of the dataset of the test, null when it has none
+	 */
+	private int appendTest(final Writer sb, final String scriptFile, final String testName, String testMethodName,
+	      Set<String> parameters) throws Exception {
+
+		File script = new File(basedir + "/" + scriptFile);
 
-		String xml = FileUtils.readFileToString(new File(basedir + "/" + scriptFile), "UTF-8");
+		System.out.println("* " + script);
 
-		System.out.println("* " + basedir + "/" + scriptFile);
+		// the commands are read first so that the optimizations can rewrite them
+		List<SeleneseCommand> commands = parseCommands(script, testName);
+		if (locatorReport != null) {
+			locatorReport.record(scriptFile, commands);
+		}
+		Map<Integer, SeleneseCommand> kept = optimize(scriptFile, commands);
+		if (checkpoints > 0) {
+			return appendSegments(sb, scriptFile, testMethodName, commands, kept, parameters);
+		}
 
 		// Method
 sb.append("@Test\n");
 		sb.append("public void " + testMethodName + "() throws InterruptedException {\n");
 		//sb.append("  setSpeed();\n");
+		if (instrument) {
+			// the steps are timed until the end of the test, even when it fails
+			sb.append("StepTimer steps = new StepTimer(" + getTestLiteral(scriptFile, parameters) + ");\n");
+			sb.append("try {\n");
+		}
+		if (navigationTiming) {
+			sb.append("NavigationTiming.start(" + getTestLiteral(scriptFile, parameters) + ");\n");
+		}
 
-		if ((xml.indexOf("<title>" + testName + "</title>") == -1)
-		      || (xml.indexOf("colspan=\"3\">" + testName + "</td>") == -1)) {
-			System.out.println("[WARN] The test name inside the file should be the file name.");
-		}
-
-		if (xml.indexOf("&quot;") != -1) {
-			xml = replace(xml, "&quot;", "\"");
-			//writeFile(outputdir + "/" + scriptFile, xml);
-		}
-
-		int x = xml.indexOf("<tbody>");
-		int y = xml.indexOf("</tbody>");
-
-		xml = xml.substring(x, y + 8);
-
-		x = 0;
-		y = 0;
-		int count = 0;
-
-		while (true) {
-			x = xml.indexOf("<tr>", x);
-			y = xml.indexOf("\n</tr>", x);
-			if ((x == -1) || (y == -1)) {
-				break;
-			}
-
-			x += 6;
-			y++;
-			count++;
-
-			String step = xml.substring(x, y);
-			String[] params = getParams(step);
-
-			String param1 = params[0];
-			String param2 = fixParam(params[1]);
-//variables management
-			param2 = param2.replaceAll("\\$\\{([a-z0-9A-Z]*)\\}", "\" + $1 + \"");
-			param2 = param2.replaceAll("storedVars\\['([a-z0-9A-Z]*)'\\]", "'\" + $1 + \"'");
-			String param3 = fixParam(params[2]);
-//variables management
-			param3 = param3.replaceAll("\\$\\{([a-z0-9A-Z]*)\\}", "\" + $1 + \"");
-			param3 = param3.replaceAll("storedVars\\['([a-z0-9A-Z]*)'\\]", "'\" + $1 + \"'");
-
-			sb.append("\n  //" + count + ": " + param1 + " | " + param2 + " | " + param3 + "\n");
-			if (param1.equals("open")) {
-				sb.append("selenium.");
-				sb.append(param1);
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\");\n");
-                        } else if (param1.equals("mouseOver")) {
-				sb.append("selenium.");
-				sb.append(param1);
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\");\n");
-			}else if (param1.equals("click")) {
-                                sb.append("selenium.mouseOver");
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\");\n");
-				sb.append("selenium.");
-				sb.append(param1);
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\");\n");
-			}  else if (param1.equals("clickAt")) {
-				sb.append("selenium.mouseOver");
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\");\n");				
-				sb.append("selenium.");
-				sb.append(param1);
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\", \"1,1\");\n");
-			} else if (param1.equals("clickAtAndWait")) {
-				sb.append("selenium.mouseOver");
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\");\n");
-				sb.append("selenium.clickAt(\"");
-				sb.append(param2);
-				sb.append("\", \"1,1\");\n");
-				sb.append("selenium.waitForPageToLoad(timeout);\n");
-			} else if (param1.equals("clickAndWait")) {
-                                sb.append("selenium.mouseOver");
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\");\n");
-
-				sb.append("selenium.click(\"");
-				sb.append(param2);
-				sb.append("\");\n");
-                                //sb.append("selenium.waitForPageToLoad(timeout);\n");
-
-			} else if (param1.equals("verifySelectedValue")) {
-				sb.append("assertTrue");
-				sb.append("(selenium.getSelectedValue(\"");
-				sb.append(param2);
-				sb.append("\").equals(\"");
-				sb.append(param3);
-				sb.append("\"));\n");
-                        }else if (param1.equals("waitForVisible")) {
-				sb.append("for (int second = 0;; second++) {\n");
-				sb.append(getTimeoutMessage(param1));
-				sb.append("try {\nif (selenium.isVisible(\"");
-				sb.append(param2);
-				sb.append("\"))\n break;\n }\n catch (Exception e) {}\n");
-				sb.append("Thread.sleep(1000);\n");
-				sb.append("}\n");
-			} else if (param1.equals("verifyVisible")) {
-			        sb.append("assertTrue(selenium.isVisible");
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\"));\n");
-			} else if (param1.equals("waitForNotVisible")) {
-				sb.append("for (int second = 0;; second++) {\n");
-				sb.append(getTimeoutMessage(param1));
-				sb.append("try {\nif (!selenium.isVisible(\"");
-				sb.append(param2);
-				sb.append("\"))\n break;\n }\n catch (Exception e) {}\n");
-				sb.append("Thread.sleep(1000);\n");
-				sb.append("}\n");
-                        } else if (param1.equals("verifyNotVisible")) {
-				sb.append("assertFalse(selenium.isVisible");
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\"));\n");
-                        }else if (param1.equals("waitForElementPresent")) {
-				sb.append("for (int second = 0;; second++) {\n");
-				sb.append("if (second >= 60) fail(\"timeout\");");
-				sb.append("try {\n if (selenium.isElementPresent(\"");
-				sb.append(param2);
-				sb.append("\")) \nbreak; }\n catch (Exception e) {}\n");
-				sb.append("Thread.sleep(1000);\n");
-				sb.append("}\n");
-			} else if (param1.equals("uncheck")) {
-				sb.append("selenium.uncheck(\"").append(param2).append("\");\n");
-			} else if (param1.equals("check")) {
-				sb.append("selenium.check(\"").append(param2).append("\");\n");
-			} else if (param1.equals("verifyChecked")) {
-				sb.append("assertTrue(selenium.isChecked");
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\"));\n");
-                        } else if (param1.equals("windowMaximize")) {
-				sb.append("selenium.windowMaximize()").append(";\n");
-			} else if (param1.equals("echo")) {
-				sb.append("System.out.println(\"" + param2 + "\");\n");
-			} else if (param1.equals("waitForTextPresent")) {
-				sb.append("for (int second = 0;; second++) {\n");
-				sb.append(getTimeoutMessage(param1));
-				sb.append("try {\n if (selenium.isTextPresent(\"");
-				sb.append(param2);
-				sb.append("\")) \nbreak; }\n catch (Exception e) {}\n");
-				sb.append("Thread.sleep(1000);\n");
-				sb.append("}\n");
-			} else if (param1.equals("verifyText")) {
-				sb.append("assertTrue");
-				sb.append("(selenium.getText(\"");
-				sb.append(param2);
-				sb.append("\").equals(\"");
-				sb.append(param3);
-				sb.append("\"));\n");
-			} else if (param1.equals("verifyTextPresent") || param1.equals("verifyTextNotPresent")) {
-				if (param1.equals("verifyTextPresent")) {
-					sb.append("assertTrue");
-				} else if (param1.equals("verifyTextNotPresent")) {
-					sb.append("assertFalse");
-				}
-				sb.append("(selenium.isTextPresent(\"");
-				sb.append(param2);
-				sb.append("\"));\n");
-			}  else if (param1.equals("verifyElementPresent") || param1.equals("verifyElementNotPresent")) {
-				if (param1.equals("verifyElementPresent")) {
-					sb.append("assertTrue");
-				} else if (param1.equals("verifyElementNotPresent")) {
-					sb.append("assertFalse");
-				}
-				sb.append("(selenium.isElementPresent(\"");
-				sb.append(param2);
-				sb.append("\"));\n");
-			} else if (param1.equals("dragAndDropToObject")) {
-				sb.append("selenium.dragAndDropToObject(\"").append(param2).append("\",\"").append(param3).append("\");\n");
-			} else if (param1.equals("waitForValue")) {
-				sb.append("assertTrue(selenium.getValue(\"");
-				sb.append(param2);
-				sb.append("\").matches(\"^");
-				sb.append(param3);
-				sb.append("$\"));\n");
-			} else if (param1.equals("storeEval")) {
-				sb.append("String ").append(param3).append(" = selenium.getEval(\"").append(param2).append("\").toString();\n");
-			} else if (param1.equals("storeXpathCount")) {
-				sb.append("String ").append(param3).append(" = selenium.getXpathCount(\"").append(param2).append(
-				      "\").toString();\n");
-			} else if (param1.equals("waitForNotChecked")) {
-				sb.append("for (int second = 0;; second++) {\n");
-				sb.append(getTimeoutMessage(param1));
-				sb.append("try {\nif (!selenium.isChecked(\"");
-				sb.append(param2);
-				sb.append("\"))\n break;\n }\n catch (Exception e) {}\n");
-				sb.append("Thread.sleep(1000);\n");
-				sb.append("}\n");
-			} else if(param1.equals("assertConfirmation") || param1.equals("verifyConfirmation")) {
-				param2 = replace(param2, "?", "[\\\\s\\\\S]");
-				sb.append("assertTrue(selenium.getConfirmation().matches(\"^");
-				sb.append(param2);
-				sb.append("$\"));\n");
-			}  else if (param1.equals("waitForElementNotPresent")) {
-				sb.append("for (int second = 0;; second++) {\n");
-				sb.append(getTimeoutMessage(param1));
-				sb.append("try {\nif (!selenium.isElementPresent(\"");
-				sb.append(param2);
-				sb.append("\"))\n break;\n }\n catch (Exception e) {}\n");
-				sb.append("Thread.sleep(1000);\n");
-				sb.append("}\n");
-			} else if (param1.equals("waitForText")) {
-				sb.append("for (int second = 0;; second++) {\n");
-				sb.append(getTimeoutMessage(param1));
-				sb.append("try {\nif (selenium.isElementPresent(\"");
-				sb.append(param2);
-				sb.append("\"))\n break;\n }\n catch (Exception e) {}\n");
-				sb.append("Thread.sleep(1000);\n");
-				sb.append("}\n");
-			}  else if (param1.equals("contextMenu") || param1.equals("mouseDown") || param1.equals("doubleClick") || param1.equals("mouseDownRight")|| param1.equals("mouseUp")||param1.equals("selectFrame") || param1.equals("selectWindow")|| param1.equals("focus")) {
-				sb.append("selenium.");
-				sb.append(param1);
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\");\n");
-			}  else if (param1.equals("verifyTitle")) {
-				sb.append("assertEquals(\"");
-				sb.append(param2);
-				sb.append("\", selenium.getTitle());\n");
-			}  else if (param1.equals("verifyLocation")) {
-				sb.append("assertEquals(\"");
-              			sb.append(param2);
-				sb.append("\", selenium.getLocation());\n");
-
-                        } else if (param1.equals("close") || param1.equals("chooseCancelOnNextConfirmation")) {
-				sb.append("selenium.");
-				sb.append(param1);
-				sb.append("();\n");
-			} else if (param1.equals("refresh")) {
-				sb.append("selenium.refresh();\n");
-			 
-			} else if (param1.equals("waitForTextNotPresent")) {
-				sb.append("for (int second = 0;; second++) {\n");
-				sb.append(getTimeoutMessage(param1));
-				sb.append("try {\n if (!selenium.isTextPresent(\"");
-				sb.append(param2);
-				sb.append("\")) \nbreak; }\n catch (Exception e) {}\n");
-				sb.append("Thread.sleep(1000);\n");
-				sb.append("}\n");
-			} else if (param1.equals("pause")) {
-				sb.append("Thread.sleep(");
-				sb.append(param2);
-				sb.append(");\n");
-			}  else if (param1.equals("addSelection") || param1.equals("select") || param1.equals("type")
-			      || param1.equals("typeKeys") || param1.equals("waitForPopUp")) {
-				sb.append("selenium.");
-				sb.append(param1);
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\", \"");
-				sb.append(param3);
-				sb.append("\");\n");
-			} else if (param1.equals("selectAndWait")) {
-				sb.append("selenium.select(\"");
-				sb.append(param2);
-				sb.append("\", \"");
-				sb.append(param3);
-				sb.append("\");\n");
-				sb.append("selenium.waitForPageToLoad(timeout);\n");
-			} else if (param1.equals("storeText")) {
-				sb.append("String ").append(param3).append(" = selenium.getText(\"").append(param2).append(
-				      "\").toString();\n");
-			}
-
-/*else if (param1.equals("storeText")) {
-				sb.append("String ");
-				sb.append(param3);
-				sb.append(" = selenium.getText(\"");
-				sb.append(param2);
-				sb.append("\");\n");
-				sb.append("RuntimeVariables.setValue(\"");
-				sb.append(param3);
-				sb.append("\", ");
-				sb.append(param3);
-				sb.append(");\n");
-			}*/
- else if (param1.equals("verifyValue")) {
-				sb.append("assertEquals(\"");
-				sb.append(param3);
-				sb.append("\", selenium.getValue(\"");
-				sb.append(param2);
-				sb.append("\"));\n");
-                        } else if (param1.equals("waitForAlert")) {
-				sb.append("waitForAlert(\"");
-				sb.append(param2);
-				sb.append("\");\n");
-			} else if (param1.equals("waitForConfirmation")) {
-				sb.append("for (int second = 0;; second++) {\n");
-				sb.append(getTimeoutMessage(param1));
-				sb.append("try {\n");
-				sb.append("if (selenium.getConfirmation().equals(\"");
-				sb.append(param2);
-				sb.append("\")) {\nbreak;\n}\n}\ncatch (Exception e) {\n}\n");
-				sb.append("Thread.sleep(1000);\n");
-				sb.append("}\n");
-			}else if (param1.equals("waitForConfirmationPresent")) {
-				sb.append("for (int second = 0;; second++) {\n");
-				sb.append(getTimeoutMessage(param1));
-				sb.append("try {\n");
-				sb.append("if (selenium.isConfirmationPresent()");
-				sb.append("){\nbreak;\n}\n}\ncatch (Exception e) {\n}\n");
-				sb.append("Thread.sleep(1000);\n");
-				sb.append("}\n");
-			} else if (param1.equals("verifyEval")) {
-				sb.append("assertEquals(\"");
-				sb.append(param3);
-				sb.append("\", selenium.getEval(\"");
-				sb.append(param2);
-				sb.append("\"));\n");
-			} else if (param1.equals("storeAttribute")) {
-				sb.append("String ").append(param3).append(" = ").append("selenium.getAttribute(\"").append(param2).append("\");\n");
-			} else if (param1.equals("keyDown") || param1.equals("keyUp") || param1.equals("keyPress")) {
-				sb.append("selenium.");
-				sb.append(param1);
-				sb.append("(\"");
-				sb.append(param2);
-				sb.append("\", \"");
-				sb.append(param3);
-				sb.append("\");\n");
-			} else if (param1.equals("verifyAttribute")) {
-				sb.append("assertTrue");
-				sb.append("(selenium.getAttribute(\"");
-				sb.append(param2);
-				sb.append("\").equals(\"");
-				sb.append(param3);
-				sb.append("\"));\n");
-			} else if (param1.length() > 0) {
-				String message = param1 + " was not translated \"" + param2 + "\"";
-				System.err.println("[ERROR] " + message);
-				sb.append("// NOT GENERATED " + message);
-				throw new RuntimeException("Selenium function not implemented : " + message);
+		int untranslatedCount = 0;
+		// the variables of the dataset and the ones stored by the test, the other ones being global
+		Set<String> locals = new HashSet<String>();
+		if (parameters != null) {
+			locals.addAll(parameters);
+		}
+		for (SeleneseCommand recorded : commands) {
+			SeleneseCommand command = kept.get(recorded.getIndex());
+			if (command == null) {
+				appendRemoved(sb, recorded);
+				continue;
 			}
+			StringWriter code = new StringWriter();
+			if (!appendCommand(code, scriptFile, command, instrument, locals)) {
+				untranslatedCount++;
+			}
+			Matcher matcher = VARIABLE_DECLARATION.matcher(code.getBuffer());
+			while (matcher.find()) {
+				locals.add(matcher.group(1));
+			}
+			sb.append(code.getBuffer());
+		}
+		if (navigationTiming) {
+			sb.append("NavigationTiming.end();\n");
+		}
+		if (instrument) {
+			sb.append("} finally {\nsteps.end();\n}\n");
 		}
 		sb.append("}\n\n");
+		return untranslatedCount;
 	}
 
-	private String getTimeoutMessage(String param1) {
-		return "if (second >= timeoutSecInt)\n fail(\"" + param1 +" reached a timeout (\" + timeoutSecInt + \"s)\");\n";
-	}
-	
-	public static void writeFile(String file, String content) throws IOException {
-		System.out.println("[INFO] Writing file : " + file);
-		FileUtils.writeStringToFile(new File(file), content);
+	/**
+	 * Applies the optimizations to the commands, returning the kept ones by index.
+	 */
+	private Map<Integer, SeleneseCommand> optimize(String scriptFile, List<SeleneseCommand> commands) {
+		List<SeleneseCommand> optimized = commands;
+		for (OptimizationPass pass : optimizations) {
+			optimized = pass.apply(scriptFile, optimized);
+		}
+		// the passes keep the index of the commands they rewrite
+		Map<Integer, SeleneseCommand> kept = new HashMap<Integer, SeleneseCommand>();
+		for (SeleneseCommand command : optimized) {
+			kept.put(command.getIndex(), command);
+		}
+		return kept;
 	}
 
-	private String[] getParams(String step) throws Exception {
-		String[] params = new String[3];
-
-		int x = 0;
-		int y = 0;
+	private void appendRemoved(Writer sb, SeleneseCommand recorded) throws IOException {
+		sb.append("\n  //" + recorded.getIndex() + ": " + recorded.getName() + " | "
+		      + VariableInterpolator.escape(recorded.getTarget()) + " | "
+		      + VariableInterpolator.escape(recorded.getValue()) + "\n// REMOVED by the optimizations\n");
+		commandsOptimized.incrementAndGet();
+	}
 
-		for (int i = 0; i < 3; i++) {
-			x = step.indexOf("<td>", x) + 4;
-			y = step.indexOf("\n", x);
-			y = step.lastIndexOf("</td>", y);
-			params[i] = StringEscapeUtils.unescapeHtml(step.substring(x, y));
+	/**
+	 * Writes the test method of {@link #setCheckpoints(int)}: every {@link #getCheckpoints()} commands are
+	 * a segment method run by a CheckpointRunner, which retries a failed segment from its checkpoint. The
+	 * stored variables are fields of the test, so that every segment reads them and the runner saves them
+	 * with the checkpoints, as the variables of the dataset.
+	 */
+	private int appendSegments(Writer sb, String scriptFile, String testMethodName, List<SeleneseCommand> commands,
+	      Map<Integer, SeleneseCommand> kept, Set<String> parameters) throws Exception {
+		StringWriter segments = new StringWriter();
+		Set<String> variables = new LinkedHashSet<String>();
+		if (parameters != null) {
+			variables.addAll(parameters);
+		}
+		int segment = 1;
+		int size = 0;
+		int untranslatedCount = 0;
+		segments.append("private void " + testMethodName + "_1() throws Exception {\n");
+		for (SeleneseCommand recorded : commands) {
+			SeleneseCommand command = kept.get(recorded.getIndex());
+			if (command == null) {
+				appendRemoved(segments, recorded);
+				continue;
+			}
+			if (command.getName().length() > 0 && size++ == checkpoints) {
+				segment++;
+				size = 1;
+				segments.append("}\n\nprivate void " + testMethodName + "_" + segment + "() throws Exception {\n");
+			}
+			StringWriter code = new StringWriter();
+			if (!appendCommand(code, scriptFile, command, instrument, variables)) {
+				untranslatedCount++;
+			}
+			Matcher matcher = VARIABLE_DECLARATION.matcher(code.getBuffer());
+			StringBuffer assignments = new StringBuffer();
+			while (matcher.find()) {
+				variables.add(matcher.group(1));
+				matcher.appendReplacement(assignments, "$1 = ");
+			}
+			matcher.appendTail(assignments);
+			segments.append(assignments);
 		}
+		segments.append("}\n\n");
 
-		return params;
-	}
+		String test = getTestLiteral(scriptFile, parameters);
+sb.append("@Test\n");
+		sb.append("public void " + testMethodName + "() throws Exception {\n");
+		if (instrument) {
+			sb.append("steps = new StepTimer(" + test + ");\n");
+			sb.append("try {\n");
+		}
+		if (navigationTiming) {
+			sb.append("NavigationTiming.start(" + test + ");\n");
+		}
+		sb.append("new CheckpointRunner(" + test + ", selenium, this");
+		for (String variable : variables) {
+			sb.append(", \"" + variable + "\"");
+		}
+		sb.append(").run(" + segment + ", new CheckpointRunner.Segments() {\n");
+		sb.append("public void run(int segment) throws Exception {\n");
+		sb.append("switch (segment) {\n");
+		for (int i = 1; i <= segment; i++) {
+			sb.append("case " + i + " :\n" + testMethodName + "_" + i + "();\nbreak;\n");
+		}
+		sb.append("}\n}\n});\n");
+		if (navigationTiming) {
+			sb.append("NavigationTiming.end();\n");
+		}
+		if (instrument) {
+			sb.append("} finally {\nsteps.end();\n}\n");
+		}
+		sb.append("}\n\n");
 
-	private String replace(String s, String oldSub, String newSub) {
-		if ((s == null) || (oldSub == null) || (newSub == null)) {
-			return null;
+		if (instrument) {
+			sb.append("StepTimer steps;\n");
 		}
-		int y = s.indexOf(oldSub);
-		if (y >= 0) {
-			StringBuffer sb = new StringBuffer(s.length() + 5 * newSub.length());
-			int length = oldSub.length();
-			int x = 0;
-			while (x <= y) {
-				sb.append(s.substring(x, y));
-				sb.append(newSub);
-				x = y + length;
-				y = s.indexOf(oldSub, x);
-			}
-			sb.append(s.substring(x));
-			return sb.toString();
-		} else {
-			return s;
+		// the stored variables, read by every segment
+		for (String variable : variables) {
+			if (parameters == null || !parameters.contains(variable)) {
+				sb.append("String " + variable + ";\n");
+			}
 		}
+		sb.append("\n");
+		sb.append(segments.getBuffer());
+		return untranslatedCount;
 	}
 
-	private String fixParam(String param) {
-		StringBuffer sb = new StringBuffer();
+	/**
+	 * Reads the commands of the script, warning when its title is not the given test name, if any.
+	 */
+	private List<SeleneseCommand> parseCommands(File script, final String testName) throws IOException {
+		final List<SeleneseCommand> commands = new ArrayList<SeleneseCommand>();
+		new SeleneseParser().parse(script, new SeleneseHandler() {
+			public void header(String title, String caption) {
+				if (testName != null && (!testName.equals(title) || !testName.equals(caption))) {
+					System.out.println("[WARN] The test name inside the file should be the file name.");
+				}
+			}
 
-		char[] array = param.toCharArray();
+			public void command(SeleneseCommand command) {
+				commands.add(command);
+			}
+		});
+		return commands;
+	}
 
-		for (int i = 0; i < array.length; ++i) {
-			char c = array[i];
+	/**
+	 * Writes the code of the command, returning false when the command has no emitter.
+	 *
+	 * @param timed true to time the command with the StepTimer of the test
+	 * @param locals the Java identifiers of the variables stored before the command, the other ones being
+	 *           global, or null when all the variables are local
+	 */
+	private boolean appendCommand(Writer sb, String scriptFile, SeleneseCommand command, boolean timed,
+	      Set<String> locals) throws Exception {
+		String param1 = command.getName();
+		String param2 = interpolator.toJavaString(command.getTarget(), locals);
+		String param3 = interpolator.toJavaString(command.getValue(), locals);
 
-			if (c == '\\') {
-				sb.append("\\\\");
-			} else if (c == '"') {
-				sb.append("\\\"");
-			} else if (Character.isWhitespace(c)) {
-				sb.append(c);
-			} /*
-				 * else if ((c < 0x0020) || (c > 0x007e)) { sb.append("\\u");
-				 * sb.append(UnicodeFormatter.charToHex(c)); }
-				 */else {
-				sb.append(c);
+		sb.append("\n  //" + command.getIndex() + ": " + param1 + " | " + param2 + " | " + param3 + "\n");
+		if (param1.length() == 0) {
+			return true;
+		}
+		CommandEmitter emitter = emitters.get(param1);
+		SeleneseMacro macro = null;
+		String message = param1 + " was not translated \"" + param2 + "\"";
+		if (emitter == null && param1.equals(SeleneseMacro.INCLUDE)) {
+			String macroFile = getMacroFile(scriptFile, command.getTarget());
+			if (macroFile != null) {
+				macro = getMacro(macroFile);
+			} else {
+				message = "include of an unknown macro \"" + param2 + "\"";
 			}
 		}
-		return replace(sb.toString(), _FIX_PARAM_OLD_SUBS, _FIX_PARAM_NEW_SUBS);
-	}
-
-	private String replace(String s, String[] oldSubs, String[] newSubs) {
-		if ((s == null) || (oldSubs == null) || (newSubs == null)) {
-			return null;
+		if (emitter != null || macro != null) {
+			if (timed) {
+				sb.append("steps.step(" + command.getIndex() + ", \"" + param1 + "\", \""
+				      + VariableInterpolator.escape(command.getTarget()) + "\");\n");
+			}
+			if (macro != null) {
+				sb.append(macro.getCall(locals));
+			} else {
+				emitter.emit(new SeleneseCommand(command.getIndex(), command.getLine(), param1, param2, param3), sb);
+				if (navigationTiming && NAVIGATIONS.contains(param1)) {
+					sb.append("NavigationTiming.record(selenium, " + command.getIndex() + ", \"" + param1 + "\");\n");
+				}
+				if (elementCache && ElementCache.isNavigation(param1)) {
+					sb.append("ElementCache.clear(selenium);\n");
+				}
+			}
+			return true;
 		}
-
-		if (oldSubs.length != newSubs.length) {
-			return s;
+		sb.append("// NOT GENERATED " + message + "\n");
+		if (!reportUntranslated) {
+			System.err.println("[ERROR] " + message);
+			throw new RuntimeException("Selenium function not implemented : " + message);
 		}
+		untranslated(scriptFile, command, message);
+		return false;
+	}
 
-		for (int i = 0; i < oldSubs.length; i++) {
-			s = replace(s, oldSubs[i], newSubs[i]);
-		}
+	/**
+	 * Records a command which has no emitter, when {@link #isReportUntranslated()}.
+	 */
+	protected void untranslated(String scriptFile, SeleneseCommand command, String message) {
+		untranslated.add(scriptFile + ":" + command.getLine() + " : " + message);
+	}
 
-		return s;
+	public static void writeFile(String file, String content) throws IOException {
+		System.out.println("[INFO] Writing file : " + file);
+		FileUtils.writeStringToFile(new File(file), content);
 	}
 
 	private static final String replaceSeparatorPattern = File.separator.equals("\\") ? "\\\\" : File.separator;
-	private static final String[] _FIX_PARAM_OLD_SUBS = new String[] { "\\\\n", "<br />" };
-	private static final String[] _FIX_PARAM_NEW_SUBS = new String[] { "\\n", "\\n" };
 	public static final String SLASH = "/";
 
 }
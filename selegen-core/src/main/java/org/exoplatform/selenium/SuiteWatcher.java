@@ -0,0 +1,247 @@
+package org.exoplatform.selenium;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+/**
+ * Generates the tests of a suite again each time its scripts are saved, in the same JVM, so that a
+ * script edited in the Selenium IDE is generated, and optionally run, in a few seconds:
+ *
+ * <pre>
+ * java -cp &lt;test class path&gt; org.exoplatform.selenium.SuiteWatcher src/suite target/selegen [target/selegen-classes]
+ * </pre>
+ *
+ * The suite is checked every selegen.watch.interval ms (500 by default) for the Test_*.html, Macro_*.html
+ * and Test_*.csv files added, changed or removed. Only the changed Test_*.html scripts and the ones of the
+ * changed datasets are generated again, the whole suite being generated, incrementally, when a macro
+ * changed or a script was removed. With a classes directory, these tests are compiled to it and run with
+ * JUnit, the browsers of -Dselegen.reuseSession=true being kept open between the runs.
+ */
+public class SuiteWatcher {
+
+	private final File suite;
+
+	private final SeleniumTestCaseGenerator generator;
+
+	/** The directory of the generated sources. */
+	private final File sources;
+
+	/** The directory where the generated tests are compiled and run from, null to only generate them. */
+	private final File classes;
+
+	private final long interval = Long.getLong("selegen.watch.interval", 500);
+
+	/** The last modification and length of the files of the suite, by path, null before the first scan. */
+	private Map<String, String> snapshot;
+
+	/** The class loader of the tests of the last run, closed before the next one. */
+	private URLClassLoader loader;
+
+	public SuiteWatcher(String suite, String outputdir, String classes) throws Exception {
+		this.suite = new File(suite);
+		this.generator = new SeleniumTestCaseGenerator(suite, outputdir);
+		this.generator.setIncremental(true);
+		this.sources = new File(outputdir);
+		this.classes = classes != null ? new File(classes) : null;
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2 || args.length > 3) {
+			throw new IllegalArgumentException("SuiteWatcher suitePath Target [Classes]");
+		}
+		new SuiteWatcher(args[0], args[1], args.length == 3 ? args[2] : null).watch();
+	}
+
+	/**
+	 * Generates the suite, then again at each change of its scripts, until the JVM is stopped.
+	 */
+	public void watch() throws InterruptedException {
+		System.out.println("[INFO] Watching " + suite + " every " + interval + "ms");
+		while (true) {
+			Map<String, String> files = new HashMap<String, String>();
+			scan(suite, "", files);
+			if (!files.equals(snapshot)) {
+				Set<String> scripts = snapshot == null ? null : getChangedScripts(snapshot, files);
+				snapshot = files;
+				if (scripts == null || !scripts.isEmpty()) {
+					update(scripts);
+				}
+			}
+			Thread.sleep(interval);
+		}
+	}
+
+	/**
+	 * Returns the Test_*.html scripts to generate again after a change of the files of the suite, or null
+	 * when the whole suite must be generated again: a macro changed or a file was removed.
+	 */
+	private Set<String> getChangedScripts(Map<String, String> previous, Map<String, String> files) {
+		Set<String> scripts = new TreeSet<String>();
+		for (String path : previous.keySet()) {
+			if (!files.containsKey(path)) {
+				return null;
+			}
+		}
+		for (Map.Entry<String, String> file : files.entrySet()) {
+			String path = file.getKey();
+			if (file.getValue().equals(previous.get(path))) {
+				continue;
+			}
+			String name = path.substring(path.lastIndexOf('/') + 1);
+			if (SeleneseMacro.isMacro(name)) {
+				return null;
+			} else if (!name.startsWith("Test_")) {
+				continue;
+			} else if (name.endsWith(".html")) {
+				scripts.add(path);
+			} else {
+				// a dataset, generated with its script
+				String script = path.substring(0, path.lastIndexOf('.')) + ".html";
+				if (files.containsKey(script)) {
+					scripts.add(script);
+				}
+			}
+		}
+		return scripts;
+	}
+
+	/**
+	 * Generates the scripts, or the whole suite when they are null, then compiles and runs their tests
+	 * when there is a classes directory.
+	 */
+	public void update(Set<String> changedScripts) {
+		long start = System.currentTimeMillis();
+		List<String> scripts;
+		try {
+			if (changedScripts == null) {
+				generator.run();
+			} else {
+				generator.run(changedScripts);
+			}
+			scripts = generator.getGeneratedScripts();
+		} catch (Exception e) {
+			System.out.println("[ERROR] Generation failed : " + e.getMessage());
+			return;
+		}
+		System.out.println("[INFO] " + scripts.size() + " tests generated in " + (System.currentTimeMillis() - start)
+		      + "ms " + scripts);
+		if (classes == null || scripts.isEmpty()) {
+			return;
+		}
+		if (compile(scripts)) {
+			runTests(scripts);
+		}
+	}
+
+	private void scan(File directory, String path, Map<String, String> files) {
+		File[] children = directory.listFiles();
+		if (children == null) {
+			return;
+		}
+		for (File file : children) {
+			String name = file.getName();
+			if (file.isDirectory()) {
+				if (!name.startsWith(".")) {
+					scan(file, path + name + "/", files);
+				}
+			} else if (name.endsWith(".html") || name.endsWith(".csv")) {
+				files.put(path + name, file.lastModified() + ":" + file.length());
+			}
+		}
+	}
+
+	/**
+	 * Compiles the tests of the scripts, javac compiling the other generated sources they use, such as the
+	 * macros, when their class is missing or older.
+	 */
+	private boolean compile(List<String> scripts) {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			System.out.println("[WARN] No Java compiler in " + System.getProperty("java.home")
+			      + ", the tests cannot be run");
+			return false;
+		}
+		long start = System.currentTimeMillis();
+		List<String> arguments = new ArrayList<String>();
+		arguments.add("-nowarn");
+		arguments.add("-encoding");
+		arguments.add("UTF-8");
+		arguments.add("-d");
+		arguments.add(classes.getPath());
+		arguments.add("-sourcepath");
+		arguments.add(sources.getPath());
+		arguments.add("-cp");
+		arguments.add(classes.getPath() + File.pathSeparator + System.getProperty("java.class.path"));
+		for (String script : scripts) {
+			arguments.add(new File(sources, script.substring(0, script.lastIndexOf('.')) + ".java").getPath());
+		}
+		classes.mkdirs();
+		if (compiler.run(null, null, null, arguments.toArray(new String[arguments.size()])) != 0) {
+			System.out.println("[ERROR] Compilation of the tests failed");
+			return false;
+		}
+		System.out.println("[INFO] " + scripts.size() + " tests compiled in " + (System.currentTimeMillis() - start)
+		      + "ms");
+		return true;
+	}
+
+	/**
+	 * Runs the tests of the scripts, loaded again by a new class loader, the one of the previous run being
+	 * closed.
+	 */
+	private void runTests(List<String> scripts) {
+		closeLoader();
+		ClassLoader parent = Thread.currentThread().getContextClassLoader();
+		try {
+			loader = new URLClassLoader(new URL[] {classes.toURI().toURL()}, getClass()
+			      .getClassLoader());
+			List<Class<?>> tests = new ArrayList<Class<?>>();
+			for (String script : scripts) {
+				tests.add(loader.loadClass(script.substring(0, script.lastIndexOf('.')).replace('/', '.')));
+			}
+			Thread.currentThread().setContextClassLoader(loader);
+			Result result = JUnitCore.runClasses(tests.toArray(new Class<?>[tests.size()]));
+			for (Failure failure : result.getFailures()) {
+				System.out.println("[ERROR] " + failure.getTestHeader() + " : " + failure.getMessage());
+			}
+			System.out.println("[INFO] Tests run: " + result.getRunCount() + ", Failures: " + result.getFailureCount()
+			      + ", Time: " + result.getRunTime() + "ms");
+		} catch (Exception e) {
+			System.out.println("[ERROR] The tests cannot be run : " + e);
+		} finally {
+			Thread.currentThread().setContextClassLoader(parent);
+		}
+	}
+
+	/**
+	 * Closes the class loader of the previous tests, so that their classes and jar handles are released,
+	 * when it can be closed (Java 7 and later).
+	 */
+	private void closeLoader() {
+		if (loader instanceof Closeable) {
+			try {
+				((Closeable) loader).close();
+			} catch (IOException e) {
+				System.out.println("[WARN] Unable to close the class loader of the tests : " + e.getMessage());
+			}
+		}
+		loader = null;
+	}
+
+}
@@ -0,0 +1,76 @@
+package org.exoplatform.selenium;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Emits a code template in which {command}, {target} and {value} are replaced by the ones of the
+ * command, for instance <code>selenium.type("{target}", "{value}");\n</code>, and {variable} by the Java
+ * identifier of the variable named by the value. The template is split once, when the emitter is
+ * created.
+ */
+public class TemplateEmitter implements CommandEmitter {
+
+	private static final String[] PARAMETERS = { "{command}", "{target}", "{value}", "{variable}" };
+
+	/** The text before each parameter, and the text after the last one. */
+	private final String[] texts;
+
+	/** The index in {@link #PARAMETERS} of each parameter. */
+	private final int[] parameters;
+
+	public TemplateEmitter(String template) {
+		List<String> texts = new ArrayList<String>();
+		List<Integer> parameters = new ArrayList<Integer>();
+		int x = 0;
+		int y = 0;
+		while ((y = template.indexOf('{', y)) != -1) {
+			int parameter = getParameter(template, y);
+			if (parameter == -1) {
+				y++;
+			} else {
+				texts.add(template.substring(x, y));
+				parameters.add(parameter);
+				x = y = y + PARAMETERS[parameter].length();
+			}
+		}
+		texts.add(template.substring(x));
+		this.texts = texts.toArray(new String[texts.size()]);
+		this.parameters = new int[parameters.size()];
+		for (int i = 0; i < this.parameters.length; i++) {
+			this.parameters[i] = parameters.get(i);
+		}
+	}
+
+	public void emit(SeleneseCommand command, Writer out) throws IOException {
+		for (int i = 0; i < parameters.length; i++) {
+			out.write(texts[i]);
+			switch (parameters[i]) {
+			case 0:
+				out.write(command.getName());
+				break;
+			case 1:
+				out.write(command.getTarget());
+				break;
+			case 2:
+				out.write(command.getValue());
+				break;
+			default:
+				out.write(VariableInterpolator.toIdentifier(command.getValue()));
+			}
+		}
+		out.write(texts[parameters.length]);
+	}
+
+	private static int getParameter(String template, int index) {
+		for (int i = 0; i < PARAMETERS.length; i++) {
+			if (template.startsWith(PARAMETERS[i], index)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,34 @@
+package org.exoplatform.selenium;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Receives the generated test classes. A test is named by the path of its script relative to the suite,
+ * without the extension, such as <code>portal/Test_Portal_Login</code>.
+ */
+public interface TestSourceSink {
+
+	/**
+	 * Returns true when the output of the test, as left by a previous generation, is still available.
+	 */
+	boolean exists(String test);
+
+	Writer open(String test) throws IOException;
+
+	/**
+	 * Keeps the source written to the writer returned by {@link #open(String)}, the writer being closed.
+	 */
+	void commit(String test, Writer writer) throws IOException;
+
+	/**
+	 * Drops the source of a test whose generation failed.
+	 */
+	void abort(String test, Writer writer);
+
+	/**
+	 * Removes the output of a test whose script was removed from the suite.
+	 */
+	void remove(String test);
+
+}
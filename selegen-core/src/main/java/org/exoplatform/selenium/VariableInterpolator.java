@@ -0,0 +1,216 @@
+package org.exoplatform.selenium;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.exoplatform.selenium.runtime.GlobalVariables;
+
+/**
+ * Turns a recorded parameter into the content of a Java string literal in one pass: quotes and
+ * backslashes are escaped, \n and &lt;br /&gt; become line breaks, and the <code>${name}</code> and
+ * <code>storedVars['name']</code> references are replaced by the Java variable of the same name.
+ * Variable names are made of letters, digits, underscores and dots. The variables which are not stored by
+ * the test are read from the {@link GlobalVariables}, as the user extensions read their globalStoredVars.
+ */
+public class VariableInterpolator {
+
+	private static final String STORED_VARS = "storedVars[";
+
+	private static final String BR = "<br />";
+
+	private static final Set<String> KEYWORDS = new HashSet<String>(Arrays.asList("abstract", "assert", "boolean",
+	      "break", "byte", "case", "catch", "char", "class", "const", "continue", "default", "do", "double", "else",
+	      "enum", "extends", "false", "final", "finally", "float", "for", "goto", "if", "implements", "import",
+	      "instanceof", "int", "interface", "long", "native", "new", "null", "package", "private", "protected",
+	      "public", "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this", "throw",
+	      "throws", "transient", "true", "try", "void", "volatile", "while"));
+
+	public String toJavaString(String param) {
+		return toJavaString(param, null);
+	}
+
+	/**
+	 * @param locals the Java identifiers of the variables stored by the test before the parameter, the
+	 *           other ones being global; null when all the variables are local
+	 */
+	public String toJavaString(String param, Set<String> locals) {
+		int length = param.length();
+		StringBuilder sb = new StringBuilder(length + 16);
+		for (int i = 0; i < length; i++) {
+			char c = param.charAt(i);
+			int end;
+			if (c == '\\') {
+				if (i + 1 < length && param.charAt(i + 1) == 'n') {
+					sb.append("\\n");
+					i++;
+				} else {
+					sb.append("\\\\");
+				}
+			} else if (c == '"') {
+				sb.append("\\\"");
+			} else if (c == '\n') {
+				sb.append("\\n");
+			} else if (c == '<' && param.startsWith(BR, i)) {
+				sb.append("\\n");
+				i += BR.length() - 1;
+			} else if (c == '$' && i + 1 < length && param.charAt(i + 1) == '{'
+			      && (end = getVariableEnd(param, i + 2, '}')) != -1) {
+				sb.append("\" + ").append(toReference(param.substring(i + 2, end), locals)).append(" + \"");
+				i = end;
+			} else if (c == 's' && (end = getStoredVarEnd(param, i)) != -1) {
+				sb.append("'\" + ").append(toReference(param.substring(i + STORED_VARS.length() + 1, end - 1), locals))
+				      .append(" + \"'");
+				i = end;
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the Java expression of the variable: its local variable, or its global one.
+	 */
+	public static String toReference(String name, Set<String> locals) {
+		String identifier = toIdentifier(name);
+		if (locals == null || locals.contains(identifier)) {
+			return identifier;
+		}
+		return "GlobalVariables.get(\"" + name + "\")";
+	}
+
+	/**
+	 * Resolves a recorded parameter when it is interpreted instead of generated: \n and &lt;br /&gt;
+	 * become line breaks, and the variable references are replaced by the stored values, as the generated
+	 * string literal would evaluate.
+	 */
+	public String resolve(String param, Map<String, String> variables) {
+		int length = param.length();
+		StringBuilder sb = new StringBuilder(length + 16);
+		for (int i = 0; i < length; i++) {
+			char c = param.charAt(i);
+			int end;
+			if (c == '\\' && i + 1 < length && param.charAt(i + 1) == 'n') {
+				sb.append('\n');
+				i++;
+			} else if (c == '<' && param.startsWith(BR, i)) {
+				sb.append('\n');
+				i += BR.length() - 1;
+			} else if (c == '$' && i + 1 < length && param.charAt(i + 1) == '{'
+			      && (end = getVariableEnd(param, i + 2, '}')) != -1) {
+				sb.append(getValue(variables, param.substring(i + 2, end)));
+				i = end;
+			} else if (c == 's' && (end = getStoredVarEnd(param, i)) != -1) {
+				sb.append('\'').append(getValue(variables, param.substring(i + STORED_VARS.length() + 1, end - 1)))
+				      .append('\'');
+				i = end;
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the names of the variables referenced by a recorded parameter, in their order.
+	 */
+	public List<String> getVariables(String param) {
+		List<String> variables = new ArrayList<String>();
+		int length = param.length();
+		for (int i = 0; i < length; i++) {
+			char c = param.charAt(i);
+			int end;
+			if (c == '$' && i + 1 < length && param.charAt(i + 1) == '{'
+			      && (end = getVariableEnd(param, i + 2, '}')) != -1) {
+				variables.add(param.substring(i + 2, end));
+				i = end;
+			} else if (c == 's' && (end = getStoredVarEnd(param, i)) != -1) {
+				variables.add(param.substring(i + STORED_VARS.length() + 1, end - 1));
+				i = end;
+			}
+		}
+		return variables;
+	}
+
+	private String getValue(Map<String, String> variables, String name) {
+		String value = variables.get(name);
+		if (value == null) {
+			value = GlobalVariables.find(name);
+		}
+		if (value == null) {
+			throw new IllegalArgumentException("Variable not stored : " + name);
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the content of a Java string literal of the parameter as recorded, its variables not
+	 * being interpolated.
+	 */
+	public static String escape(String param) {
+		return param.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	/**
+	 * Returns the Java identifier of a Selenese variable, its dots being replaced by $.
+	 */
+	public static String toIdentifier(String name) {
+		String identifier = name.replace('.', '$');
+		if (identifier.length() == 0 || Character.isDigit(identifier.charAt(0))) {
+			identifier = "_" + identifier;
+		}
+		if (KEYWORDS.contains(identifier)) {
+			identifier = identifier + "_";
+		}
+		return identifier;
+	}
+
+	/**
+	 * Returns the index of the ] closing the storedVars['name'] starting at the index, or -1.
+	 */
+	private int getStoredVarEnd(String param, int index) {
+		if (!param.startsWith(STORED_VARS, index)) {
+			return -1;
+		}
+		int start = index + STORED_VARS.length();
+		if (start >= param.length()) {
+			return -1;
+		}
+		char quote = param.charAt(start);
+		if (quote != '\'' && quote != '"') {
+			return -1;
+		}
+		int end = getVariableEnd(param, start + 1, quote);
+		if (end == -1 || end + 1 >= param.length() || param.charAt(end + 1) != ']') {
+			return -1;
+		}
+		return end + 1;
+	}
+
+	/**
+	 * Returns the index of the character closing the variable name starting at the index, or -1 when
+	 * the name is empty or invalid.
+	 */
+	private int getVariableEnd(String param, int start, char closing) {
+		int i = start;
+		while (i < param.length()) {
+			char c = param.charAt(i);
+			if (c == closing) {
+				return i > start ? i : -1;
+			} else if (!isVariableChar(c)) {
+				return -1;
+			}
+			i++;
+		}
+		return -1;
+	}
+
+	private boolean isVariableChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '.';
+	}
+
+}
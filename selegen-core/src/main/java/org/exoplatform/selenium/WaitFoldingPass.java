@@ -0,0 +1,98 @@
+package org.exoplatform.selenium;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Folds the checks of consecutive commands on the same target:
+ * <ul>
+ * <li>a check right after the same check is removed;</li>
+ * <li>a check implied by the wait before it is removed, such as a verifyElementPresent after a
+ * waitForElementPresent;</li>
+ * <li>a wait covered by the wait after it is removed, such as a waitForElementPresent before a
+ * waitForVisible.</li>
+ * </ul>
+ */
+public class WaitFoldingPass implements OptimizationPass {
+
+	/** The commands implying, when they succeed, the command of the key. */
+	private static final Map<String, Set<String>> IMPLIED = new HashMap<String, Set<String>>();
+
+	/** The waits covered by the wait of the key. */
+	private static final Map<String, Set<String>> COVERED = new HashMap<String, Set<String>>();
+
+	static {
+		put(IMPLIED, "verifyElementPresent", "waitForElementPresent", "waitForVisible", "waitForText");
+		put(IMPLIED, "verifyVisible", "waitForVisible");
+		put(IMPLIED, "verifyNotVisible", "waitForNotVisible");
+		put(IMPLIED, "verifyTextPresent", "waitForTextPresent");
+		put(IMPLIED, "verifyTextNotPresent", "waitForTextNotPresent");
+		put(IMPLIED, "verifyElementNotPresent", "waitForElementNotPresent");
+		put(IMPLIED, "waitForElementPresent", "waitForVisible", "waitForText");
+		put(IMPLIED, "waitForText", "waitForElementPresent", "waitForVisible");
+		put(COVERED, "waitForVisible", "waitForElementPresent", "waitForText");
+	}
+
+	private static void put(Map<String, Set<String>> map, String command, String... commands) {
+		map.put(command, new HashSet<String>(Arrays.asList(commands)));
+	}
+
+	public String getName() {
+		return "waits";
+	}
+
+	public List<SeleneseCommand> apply(String scriptFile, List<SeleneseCommand> commands) {
+		List<SeleneseCommand> result = new ArrayList<SeleneseCommand>(commands.size());
+		int previousIndex = -1;
+		for (SeleneseCommand command : commands) {
+			if (command.getName().length() == 0) {
+				result.add(command);
+				continue;
+			}
+			SeleneseCommand previous = previousIndex != -1 ? result.get(previousIndex) : null;
+			if (previous != null && previous.getTarget().equals(command.getTarget())) {
+				String name = command.getName();
+				if (isCheck(name) && name.equals(previous.getName()) && previous.getValue().equals(command.getValue())) {
+					OptimizationPasses.report(scriptFile, command, name + " \"" + command.getTarget()
+					      + "\" removed, same as line " + previous.getLine());
+					continue;
+				}
+				if (contains(IMPLIED, name, previous.getName())) {
+					OptimizationPasses.report(scriptFile, command, name + " \"" + command.getTarget()
+					      + "\" removed, implied by the " + previous.getName() + " of line " + previous.getLine());
+					continue;
+				}
+				if (contains(COVERED, name, previous.getName())) {
+					OptimizationPasses.report(scriptFile, previous, previous.getName() + " \"" + previous.getTarget()
+					      + "\" removed, covered by the " + name + " of line " + command.getLine());
+					result.remove(previousIndex);
+				}
+			}
+			previousIndex = result.size();
+			result.add(command);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns true for the commands which can be repeated without effect, unlike the ones reading a
+	 * confirmation or an alert, which consume it.
+	 */
+	private static boolean isCheck(String name) {
+		if (name.contains("Confirmation") || name.contains("Alert")) {
+			return false;
+		}
+		return name.startsWith("verify") || name.startsWith("assert") || name.startsWith("waitFor");
+	}
+
+	private static boolean contains(Map<String, Set<String>> map, String command, String previous) {
+		Set<String> commands = map.get(command);
+		return commands != null && commands.contains(previous);
+	}
+
+}
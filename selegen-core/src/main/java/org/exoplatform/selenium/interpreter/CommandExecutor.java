@@ -0,0 +1,12 @@
+package org.exoplatform.selenium.interpreter;
+
+/**
+ * Runs one Selenese command against the browser, as the code written by the
+ * {@link org.exoplatform.selenium.CommandEmitter} of the same command would. The target and the value
+ * of the command are already resolved, with their variables interpolated.
+ */
+public interface CommandExecutor {
+
+	void execute(SeleneseContext context, String target, String value) throws Exception;
+
+}
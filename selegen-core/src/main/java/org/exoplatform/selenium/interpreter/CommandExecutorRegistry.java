@@ -0,0 +1,33 @@
+package org.exoplatform.selenium.interpreter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The executors of the interpreted Selenese commands, by command name.
+ */
+public class CommandExecutorRegistry {
+
+	private final Map<String, CommandExecutor> executors = new HashMap<String, CommandExecutor>();
+
+	/**
+	 * Creates a registry with the built-in commands, the same as the ones translated by the generator.
+	 */
+	public static CommandExecutorRegistry createDefault() {
+		CommandExecutorRegistry registry = new CommandExecutorRegistry();
+		new DefaultCommandExecutors().register(registry);
+		return registry;
+	}
+
+	public void register(String command, CommandExecutor executor) {
+		executors.put(command, executor);
+	}
+
+	/**
+	 * Returns the executor of the command, or null when the command is not interpreted.
+	 */
+	public CommandExecutor get(String command) {
+		return executors.get(command);
+	}
+
+}
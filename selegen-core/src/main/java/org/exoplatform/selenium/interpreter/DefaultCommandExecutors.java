@@ -0,0 +1,337 @@
+package org.exoplatform.selenium.interpreter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import org.exoplatform.selenium.runtime.GlobalVariables;
+import org.exoplatform.selenium.runtime.SeleneseBatch;
+import org.exoplatform.selenium.runtime.SeleneseWait;
+
+import com.thoughtworks.selenium.Selenium;
+
+/**
+ * The commands interpreted by selegen itself, each one doing what its code in
+ * {@link org.exoplatform.selenium.DefaultCommandEmitters} does.
+ */
+public class DefaultCommandExecutors {
+
+	/**
+	 * A condition on the page, for the waits and the assertions.
+	 */
+	private interface Check {
+
+		boolean isTrue(Selenium selenium, String target) throws Exception;
+
+	}
+
+	private static final CommandExecutor MOUSE_OVER = new SeleniumMethod("mouseOver", 1);
+
+	public void register(CommandExecutorRegistry registry) {
+		registry.register("open", new SeleniumMethod("open", 1));
+		registry.register("refresh", new SeleniumMethod("refresh", 0));
+		registry.register("windowMaximize", new SeleniumMethod("windowMaximize", 0));
+		registry.register("echo", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				System.out.println(target);
+			}
+		});
+		registry.register("pause", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) throws InterruptedException {
+				Thread.sleep(Long.parseLong(target.trim()));
+			}
+		});
+		registry.register("waitForAlert", new WaitExecutor("waitForAlert", new Check() {
+			public boolean isTrue(Selenium selenium, String target) {
+				return selenium.getAlert().equals(target);
+			}
+		}));
+
+		// actions
+		CommandExecutor clickAt = new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				context.getSelenium().clickAt(target, "1,1");
+			}
+		};
+		CommandExecutor waitForPageToLoad = new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				context.getSelenium().waitForPageToLoad(context.getTimeout());
+			}
+		};
+		registry.register("mouseOver", MOUSE_OVER);
+		registry.register("click", sequence(MOUSE_OVER, new SeleniumMethod("click", 1)));
+		registry.register("clickAt", sequence(MOUSE_OVER, clickAt));
+		registry.register("clickAtAndWait", sequence(MOUSE_OVER, clickAt, waitForPageToLoad));
+		registry.register("clickAndWait", sequence(MOUSE_OVER, new SeleniumMethod("click", 1)));
+		registry.register("selectAndWait", sequence(new SeleniumMethod("select", 2), waitForPageToLoad));
+		registry.register("dragAndDropToObject", new SeleniumMethod("dragAndDropToObject", 2));
+		registerAll(registry, 1, "check", "uncheck", "contextMenu", "mouseDown", "doubleClick", "mouseDownRight",
+		      "mouseUp", "selectFrame", "selectWindow", "focus");
+		registerAll(registry, 0, "close", "chooseCancelOnNextConfirmation");
+		registerAll(registry, 2, "addSelection", "select", "type", "typeKeys", "waitForPopUp", "keyDown", "keyUp",
+		      "keyPress");
+		registry.register("batch", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				new SeleneseBatch(context.getSelenium()).addAll(target).run();
+			}
+		});
+
+		// variables
+		registry.register("storeText", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				context.store(value, context.getSelenium().getText(target));
+			}
+		});
+		registry.register("storeEval", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				context.store(value, context.getSelenium().getEval(target));
+			}
+		});
+		registry.register("storeXpathCount", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				context.store(value, context.getSelenium().getXpathCount(target).toString());
+			}
+		});
+		registry.register("storeAttribute", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				context.store(value, context.getSelenium().getAttribute(target));
+			}
+		});
+		registry.register("storeGlobal", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				GlobalVariables.store(value, target);
+			}
+		});
+		registry.register("storeTextGlobal", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				GlobalVariables.store(value, context.getSelenium().getText(target));
+			}
+		});
+		registry.register("storeValueGlobal", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				GlobalVariables.store(value, context.getSelenium().getValue(target));
+			}
+		});
+		registry.register("storeAttributeGlobal", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				GlobalVariables.store(value, context.getSelenium().getAttribute(target));
+			}
+		});
+
+		// assertions
+		registry.register("verifyTitle", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				assertEquals(target, context.getSelenium().getTitle());
+			}
+		});
+		registry.register("verifyLocation", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				assertEquals(target, context.getSelenium().getLocation());
+			}
+		});
+		registry.register("verifyValue", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				assertEquals(value, context.getSelenium().getValue(target));
+			}
+		});
+		registry.register("verifyEval", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				assertEquals(value, context.getSelenium().getEval(target));
+			}
+		});
+		registry.register("verifyText", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				assertTrue(context.getSelenium().getText(target).equals(value));
+			}
+		});
+		registry.register("verifySelectedValue", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				assertTrue(context.getSelenium().getSelectedValue(target).equals(value));
+			}
+		});
+		registry.register("verifyAttribute", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				assertTrue(context.getSelenium().getAttribute(target).equals(value));
+			}
+		});
+		registry.register("waitForValue", new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				assertTrue(context.getSelenium().getValue(target).matches("^" + value + "$"));
+			}
+		});
+		registry.register("verifyVisible", new AssertExecutor(true, VISIBLE));
+		registry.register("verifyNotVisible", new AssertExecutor(false, VISIBLE));
+		registry.register("verifyChecked", new AssertExecutor(true, CHECKED));
+		registry.register("verifyTextPresent", new AssertExecutor(true, TEXT_PRESENT));
+		registry.register("verifyTextNotPresent", new AssertExecutor(false, TEXT_PRESENT));
+		registry.register("verifyElementPresent", new AssertExecutor(true, ELEMENT_PRESENT));
+		registry.register("verifyElementNotPresent", new AssertExecutor(false, ELEMENT_PRESENT));
+		CommandExecutor confirmation = new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) {
+				// the ? of the recorded text matches any character
+				assertTrue(context.getSelenium().getConfirmation().matches("^" + target.replace("?", "[\\s\\S]") + "$"));
+			}
+		};
+		registry.register("assertConfirmation", confirmation);
+		registry.register("verifyConfirmation", confirmation);
+
+		// waits
+		registry.register("waitForVisible", new WaitExecutor("waitForVisible", VISIBLE));
+		registry.register("waitForNotVisible", new WaitExecutor("waitForNotVisible", not(VISIBLE)));
+		registry.register("waitForElementPresent", new WaitExecutor("waitForElementPresent", ELEMENT_PRESENT));
+		registry.register("waitForElementNotPresent", new WaitExecutor("waitForElementNotPresent",
+		      not(ELEMENT_PRESENT)));
+		registry.register("waitForText", new WaitExecutor("waitForText", ELEMENT_PRESENT));
+		registry.register("waitForTextPresent", new WaitExecutor("waitForTextPresent", TEXT_PRESENT));
+		registry.register("waitForTextNotPresent", new WaitExecutor("waitForTextNotPresent", not(TEXT_PRESENT)));
+		registry.register("waitForNotChecked", new WaitExecutor("waitForNotChecked", not(CHECKED)));
+		registry.register("waitForConfirmation", new WaitExecutor("waitForConfirmation", new Check() {
+			public boolean isTrue(Selenium selenium, String target) {
+				return selenium.getConfirmation().equals(target);
+			}
+		}));
+		registry.register("waitForConfirmationPresent", new WaitExecutor("waitForConfirmationPresent", new Check() {
+			public boolean isTrue(Selenium selenium, String target) {
+				return selenium.isConfirmationPresent();
+			}
+		}));
+	}
+
+	private static final Check VISIBLE = new Check() {
+		public boolean isTrue(Selenium selenium, String target) {
+			return selenium.isVisible(target);
+		}
+	};
+
+	private static final Check CHECKED = new Check() {
+		public boolean isTrue(Selenium selenium, String target) {
+			return selenium.isChecked(target);
+		}
+	};
+
+	private static final Check TEXT_PRESENT = new Check() {
+		public boolean isTrue(Selenium selenium, String target) {
+			return selenium.isTextPresent(target);
+		}
+	};
+
+	private static final Check ELEMENT_PRESENT = new Check() {
+		public boolean isTrue(Selenium selenium, String target) {
+			return selenium.isElementPresent(target);
+		}
+	};
+
+	private static Check not(final Check check) {
+		return new Check() {
+			public boolean isTrue(Selenium selenium, String target) throws Exception {
+				return !check.isTrue(selenium, target);
+			}
+		};
+	}
+
+	private static void registerAll(CommandExecutorRegistry registry, int arguments, String... commands) {
+		for (String command : commands) {
+			registry.register(command, new SeleniumMethod(command, arguments));
+		}
+	}
+
+	private static CommandExecutor sequence(final CommandExecutor... executors) {
+		return new CommandExecutor() {
+			public void execute(SeleneseContext context, String target, String value) throws Exception {
+				for (CommandExecutor executor : executors) {
+					executor.execute(context, target, value);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Calls the Selenium method of the same name as the command, with no argument, the target, or the
+	 * target and the value.
+	 */
+	private static class SeleniumMethod implements CommandExecutor {
+
+		private final Method method;
+
+		private final int arguments;
+
+		SeleniumMethod(String name, int arguments) {
+			Class<?>[] types = new Class<?>[arguments];
+			Arrays.fill(types, String.class);
+			try {
+				this.method = Selenium.class.getMethod(name, types);
+			} catch (NoSuchMethodException e) {
+				throw new IllegalArgumentException("No Selenium method " + name + " with " + arguments + " arguments", e);
+			}
+			this.arguments = arguments;
+		}
+
+		public void execute(SeleneseContext context, String target, String value) throws Exception {
+			Object[] args = arguments == 0 ? new Object[0] : arguments == 1 ? new Object[] {target} : new Object[] {
+			      target, value};
+			try {
+				method.invoke(context.getSelenium(), args);
+			} catch (InvocationTargetException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof Exception) {
+					throw (Exception) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw e;
+			}
+		}
+
+	}
+
+	private static class AssertExecutor implements CommandExecutor {
+
+		private final boolean expected;
+
+		private final Check check;
+
+		AssertExecutor(boolean expected, Check check) {
+			this.expected = expected;
+			this.check = check;
+		}
+
+		public void execute(SeleneseContext context, String target, String value) throws Exception {
+			if (expected) {
+				assertTrue(check.isTrue(context.getSelenium(), target));
+			} else {
+				assertFalse(check.isTrue(context.getSelenium(), target));
+			}
+		}
+
+	}
+
+	/**
+	 * Polls the check with {@link SeleneseWait}, until the timeout of the script.
+	 */
+	private static class WaitExecutor implements CommandExecutor {
+
+		private final String command;
+
+		private final Check check;
+
+		WaitExecutor(String command, Check check) {
+			this.command = command;
+			this.check = check;
+		}
+
+		public void execute(final SeleneseContext context, final String target, String value)
+		      throws InterruptedException {
+			SeleneseWait.waitFor(command, target, context.getTimeout(), new SeleneseWait.Condition() {
+				public boolean isTrue() throws Exception {
+					return check.isTrue(context.getSelenium(), target);
+				}
+			});
+		}
+
+	}
+
+}
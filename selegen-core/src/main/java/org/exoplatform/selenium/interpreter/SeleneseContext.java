@@ -0,0 +1,43 @@
+package org.exoplatform.selenium.interpreter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.thoughtworks.selenium.Selenium;
+
+/**
+ * The state of an interpreted script: its browser, its timeout and its stored variables.
+ */
+public class SeleneseContext {
+
+	private final Selenium selenium;
+
+	private final String timeout;
+
+	private final Map<String, String> variables = new HashMap<String, String>();
+
+	/**
+	 * @param timeout the timeout in ms, as the selenium.timeout property
+	 */
+	public SeleneseContext(Selenium selenium, String timeout) {
+		this.selenium = selenium;
+		this.timeout = timeout;
+	}
+
+	public Selenium getSelenium() {
+		return selenium;
+	}
+
+	public String getTimeout() {
+		return timeout;
+	}
+
+	public Map<String, String> getVariables() {
+		return variables;
+	}
+
+	public void store(String name, String value) {
+		variables.put(name, value);
+	}
+
+}
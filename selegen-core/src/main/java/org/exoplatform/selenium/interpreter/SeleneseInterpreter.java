@@ -0,0 +1,121 @@
+package org.exoplatform.selenium.interpreter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.exoplatform.selenium.SeleneseCommand;
+import org.exoplatform.selenium.SeleneseHandler;
+import org.exoplatform.selenium.SeleneseMacro;
+import org.exoplatform.selenium.SeleneseParser;
+import org.exoplatform.selenium.VariableInterpolator;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+/**
+ * Runs the recorded Selenese scripts without generating their Java code, each command being executed
+ * by its {@link CommandExecutor}.
+ */
+public class SeleneseInterpreter {
+
+	private final CommandExecutorRegistry executors;
+
+	private final VariableInterpolator interpolator = new VariableInterpolator();
+
+	/**
+	 * Runs the scripts of the given suite directories or Test_*.html files, with the selenium.* properties
+	 * of the generated tests.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			throw new IllegalArgumentException("SeleneseInterpreter suitePath|scriptFile...");
+		}
+		int failures = 0;
+		for (String arg : args) {
+			Result result = new JUnitCore().run(Request.runner(new SeleneseSuiteRunner(SeleneseSuite.class,
+			      new File(arg))));
+			for (Failure failure : result.getFailures()) {
+				System.err.println("[ERROR] " + failure.getTestHeader() + " : " + failure.getMessage());
+			}
+			System.out.println("[INFO] " + arg + " : " + result.getRunCount() + " scripts run, "
+			      + result.getFailureCount() + " failed, in " + result.getRunTime() + "ms");
+			failures += result.getFailureCount();
+		}
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	public SeleneseInterpreter() {
+		this(CommandExecutorRegistry.createDefault());
+	}
+
+	public SeleneseInterpreter(CommandExecutorRegistry executors) {
+		this.executors = executors;
+	}
+
+	public List<SeleneseCommand> parse(File script) throws IOException {
+		final List<SeleneseCommand> commands = new ArrayList<SeleneseCommand>();
+		new SeleneseParser().parse(script, new SeleneseHandler() {
+			public void header(String title, String caption) {
+			}
+
+			public void command(SeleneseCommand command) {
+				commands.add(command);
+			}
+		});
+		return commands;
+	}
+
+	public void run(File script, SeleneseContext context) throws Exception {
+		for (SeleneseCommand command : parse(script)) {
+			if (command.getName().equals(SeleneseMacro.INCLUDE) && executors.get(SeleneseMacro.INCLUDE) == null) {
+				include(script, command, context);
+			} else {
+				execute(script.getName(), command, context);
+			}
+		}
+	}
+
+	/**
+	 * Runs the macro included by the command with a copy of the variables, as the generated macros: the
+	 * variables it stores are not seen by the script.
+	 */
+	private void include(File script, SeleneseCommand command, SeleneseContext context) throws Exception {
+		File macro = SeleneseMacro.resolve(null, script.getAbsoluteFile().getParentFile(), command.getTarget());
+		if (macro == null) {
+			throw new IllegalArgumentException(script.getName() + ":" + command.getLine() + " include : unknown macro "
+			      + command.getTarget());
+		}
+		SeleneseContext macroContext = new SeleneseContext(context.getSelenium(), context.getTimeout());
+		macroContext.getVariables().putAll(context.getVariables());
+		run(macro, macroContext);
+	}
+
+	/**
+	 * Executes the command, its failure being reported with its script and line.
+	 */
+	public void execute(String scriptName, SeleneseCommand command, SeleneseContext context) throws Exception {
+		String name = command.getName();
+		if (name.length() == 0) {
+			return;
+		}
+		String location = scriptName + ":" + command.getLine() + " " + name;
+		CommandExecutor executor = executors.get(name);
+		if (executor == null) {
+			throw new UnsupportedOperationException(location + " : Selenium function not interpreted");
+		}
+		try {
+			executor.execute(context, interpolator.resolve(command.getTarget(), context.getVariables()),
+			      interpolator.resolve(command.getValue(), context.getVariables()));
+		} catch (AssertionError e) {
+			AssertionError error = new AssertionError(location + " : " + (e.getMessage() != null ? e.getMessage() : "failed"));
+			error.initCause(e);
+			throw error;
+		} catch (Exception e) {
+			throw new RuntimeException(location + " : " + e.getMessage(), e);
+		}
+	}
+
+}
@@ -0,0 +1,18 @@
+package org.exoplatform.selenium.interpreter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The suite directory of a class run with {@link SeleneseSuiteRunner}, relative to the working directory.
+ * The selenium.suite property overrides it.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface SeleneseSuite {
+
+	String value() default "src/suite";
+
+}
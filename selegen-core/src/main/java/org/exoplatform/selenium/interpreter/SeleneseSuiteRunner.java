@@ -0,0 +1,130 @@
+package org.exoplatform.selenium.interpreter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.exoplatform.selenium.runtime.DriverFactories;
+import org.exoplatform.selenium.runtime.SeleniumSession;
+import org.exoplatform.selenium.runtime.SessionPool;
+import org.junit.runner.Description;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.InitializationError;
+
+/**
+ * Runs every Test_*.html script of a suite as a JUnit test, with the {@link SeleneseInterpreter}:
+ *
+ * <pre>
+ * &#064;RunWith(SeleneseSuiteRunner.class)
+ * &#064;SeleneseSuite(&quot;src/suite&quot;)
+ * public class InterpretedSuite {
+ * }
+ * </pre>
+ *
+ * The scripts are read when they are run, so that an edited recording runs again without any build.
+ * Each script has its own browser, or a browser of the {@link SessionPool} with -Dselegen.reuseSession=true,
+ * started by the {@link DriverFactories} of the selenium.browser property.
+ */
+public class SeleneseSuiteRunner extends ParentRunner<File> {
+
+	private static final String TEST_PATTERN = "Test_";
+
+	private final File suite;
+
+	private final SeleneseInterpreter interpreter = new SeleneseInterpreter();
+
+	public SeleneseSuiteRunner(Class<?> testClass) throws InitializationError {
+		this(testClass, new File(System.getProperty("selenium.suite", getSuite(testClass))));
+	}
+
+	/**
+	 * @param suite a suite directory, or a single script
+	 */
+	public SeleneseSuiteRunner(Class<?> testClass, File suite) throws InitializationError {
+		super(testClass);
+		this.suite = suite;
+	}
+
+	private static String getSuite(Class<?> testClass) {
+		SeleneseSuite annotation = testClass.getAnnotation(SeleneseSuite.class);
+		return annotation != null ? annotation.value() : "src/suite";
+	}
+
+	@Override
+	protected List<File> getChildren() {
+		List<File> scripts = new ArrayList<File>();
+		if (suite.isFile()) {
+			scripts.add(suite);
+		} else {
+			collect(suite, scripts);
+		}
+		return scripts;
+	}
+
+	private void collect(File directory, List<File> scripts) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			throw new IllegalArgumentException("Not a suite directory : " + directory);
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.isDirectory() && !file.getName().startsWith(".")) {
+				collect(file, scripts);
+			} else if (file.getName().endsWith(".html") && file.getName().startsWith(TEST_PATTERN)) {
+				scripts.add(file);
+			}
+		}
+	}
+
+	@Override
+	protected Description describeChild(File script) {
+		String name = script.getPath();
+		if (!suite.isFile() && name.startsWith(suite.getPath())) {
+			name = name.substring(suite.getPath().length() + 1);
+		}
+		name = name.replace(File.separatorChar, '/');
+		return Description.createTestDescription(getTestClass().getJavaClass(), name.substring(0, name.lastIndexOf('.')));
+	}
+
+	@Override
+	protected void runChild(File script, RunNotifier notifier) {
+		Description description = describeChild(script);
+		notifier.fireTestStarted(description);
+		try {
+			run(script);
+		} catch (Throwable e) {
+			notifier.fireTestFailure(new Failure(description, e));
+		} finally {
+			notifier.fireTestFinished(description);
+		}
+	}
+
+	/**
+	 * Runs the script with the same properties as the generated tests.
+	 */
+	protected void run(File script) throws Exception {
+		String timeout = System.getProperty("selenium.timeout", "30000");
+		String baseUrl = "http://" + System.getProperty("selenium.host", "localhost") + ":"
+		      + System.getProperty("selenium.host.port", "8080");
+		boolean reuseSession = Boolean.getBoolean("selegen.reuseSession");
+		SeleniumSession session = reuseSession ? SessionPool.acquire(baseUrl) : new SeleniumSession(baseUrl,
+		      DriverFactories.create());
+		boolean passed = false;
+		try {
+			interpreter.run(script, new SeleneseContext(session.getSelenium(), timeout));
+			passed = true;
+		} finally {
+			if (!reuseSession) {
+				session.quit();
+			} else if (passed) {
+				SessionPool.release(session);
+			} else {
+				SessionPool.discard(session);
+			}
+		}
+	}
+
+}
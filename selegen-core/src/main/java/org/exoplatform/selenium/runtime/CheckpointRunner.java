@@ -0,0 +1,202 @@
+package org.exoplatform.selenium.runtime;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.io.IOUtils;
+
+import com.thoughtworks.selenium.Selenium;
+
+/**
+ * Runs the segments of a test generated with -Dselegen.checkpoints=N. A checkpoint is taken before each
+ * segment: the location and the title of the page, and the stored variables of the test. A failed
+ * segment is run again from its checkpoint, up to selenium.retry.count times (1 by default) waiting
+ * selenium.retry.delay ms (1000 by default), as long as the checkpoint location can be opened again with
+ * the same title.
+ * <p>
+ * With selenium.checkpoint.dir, the checkpoint of the running segment is also written to that directory,
+ * so that the next run of a failed test resumes from it when its preconditions still hold, instead of
+ * running the segments which passed again. The file is removed when the test passes.
+ */
+public class CheckpointRunner {
+
+	/**
+	 * Runs a segment of the test, numbered from 1.
+	 */
+	public interface Segments {
+
+		void run(int segment) throws Exception;
+
+	}
+
+	private static final String SEGMENT = "segment";
+
+	private static final String LOCATION = "location";
+
+	private static final String TITLE = "title";
+
+	private static final String VARIABLE = "variable.";
+
+	private final String test;
+
+	private final Selenium selenium;
+
+	private final Object target;
+
+	private final String[] variables;
+
+	private final int retries = Integer.getInteger("selenium.retry.count", 1);
+
+	private final long delay = Long.getLong("selenium.retry.delay", 1000);
+
+	private final File checkpointFile;
+
+	private final Map<String, Field> fields = new HashMap<String, Field>();
+
+	/**
+	 * @param target the test, whose fields named by the variables are saved and restored with the
+	 *           checkpoints
+	 */
+	public CheckpointRunner(String test, Selenium selenium, Object target, String... variables) {
+		this.test = test;
+		this.selenium = selenium;
+		this.target = target;
+		this.variables = variables;
+		String directory = System.getProperty("selenium.checkpoint.dir");
+		this.checkpointFile = directory != null && directory.length() > 0 ? new File(directory, test
+		      + ".properties") : null;
+	}
+
+	public void run(int count, Segments segments) throws Exception {
+		int first = 1;
+		Properties saved = load();
+		if (saved != null) {
+			int segment = Integer.parseInt(saved.getProperty(SEGMENT));
+			if (segment > 1 && segment <= count && restore(saved)) {
+				System.out.println("[INFO] " + test + " resumed at segment " + segment + " of " + count);
+				first = segment;
+			}
+		}
+		for (int segment = first; segment <= count; segment++) {
+			Properties checkpoint = take(segment);
+			save(checkpoint);
+			for (int attempt = 1;; attempt++) {
+				try {
+					segments.run(segment);
+					break;
+				} catch (Throwable e) {
+					if (attempt > retries) {
+						throw rethrow(e);
+					}
+					System.out.println("[WARN] " + test + " segment " + segment + " failed, retry " + attempt + "/"
+					      + retries + " : " + e);
+					Thread.sleep(delay);
+					if (!restore(checkpoint)) {
+						System.out.println("[WARN] " + test + " cannot go back to the checkpoint of segment " + segment);
+						throw rethrow(e);
+					}
+				}
+			}
+		}
+		if (checkpointFile != null) {
+			checkpointFile.delete();
+		}
+	}
+
+	private static Exception rethrow(Throwable e) {
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		return (Exception) e;
+	}
+
+	private Properties take(int segment) throws IllegalAccessException {
+		Properties checkpoint = new Properties();
+		checkpoint.setProperty(SEGMENT, String.valueOf(segment));
+		if (segment > 1) {
+			checkpoint.setProperty(LOCATION, selenium.getLocation());
+			checkpoint.setProperty(TITLE, selenium.getTitle());
+		}
+		for (String variable : variables) {
+			Object value = getField(variable).get(target);
+			if (value != null) {
+				checkpoint.setProperty(VARIABLE + variable, value.toString());
+			}
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * Goes back to the checkpoint, returning false when its page cannot be opened again.
+	 */
+	private boolean restore(Properties checkpoint) throws IllegalAccessException {
+		String location = checkpoint.getProperty(LOCATION);
+		if (location != null) {
+			try {
+				if (!location.equals(selenium.getLocation())) {
+					selenium.open(location);
+				}
+				if (!checkpoint.getProperty(TITLE).equals(selenium.getTitle())) {
+					return false;
+				}
+			} catch (RuntimeException e) {
+				System.out.println("[WARN] " + test + " cannot open " + location + " : " + e);
+				return false;
+			}
+		}
+		for (String variable : variables) {
+			getField(variable).set(target, checkpoint.getProperty(VARIABLE + variable));
+		}
+		return true;
+	}
+
+	private Field getField(String name) {
+		Field field = fields.get(name);
+		if (field == null) {
+			try {
+				field = target.getClass().getDeclaredField(name);
+			} catch (NoSuchFieldException e) {
+				throw new IllegalArgumentException("No variable " + name + " in " + target.getClass().getName(), e);
+			}
+			field.setAccessible(true);
+			fields.put(name, field);
+		}
+		return field;
+	}
+
+	private Properties load() throws IOException {
+		if (checkpointFile == null || !checkpointFile.isFile()) {
+			return null;
+		}
+		Properties checkpoint = new Properties();
+		InputStream in = new FileInputStream(checkpointFile);
+		try {
+			checkpoint.load(in);
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+		return checkpoint.getProperty(SEGMENT) != null ? checkpoint : null;
+	}
+
+	private void save(Properties checkpoint) throws IOException {
+		if (checkpointFile == null) {
+			return;
+		}
+		checkpointFile.getParentFile().mkdirs();
+		OutputStream out = new FileOutputStream(checkpointFile);
+		try {
+			checkpoint.store(out, test);
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+}
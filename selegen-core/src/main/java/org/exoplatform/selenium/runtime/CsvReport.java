@@ -0,0 +1,191 @@
+package org.exoplatform.selenium.runtime;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A CSV file filled by the generated tests while they run, for instance with the duration of their
+ * waits. The file is opened on the first record and lines are appended to it, so that the successive
+ * runs add to it; it is flushed when the JVM exits. The JVMs running at the same time cannot share a
+ * file, their lines being interleaved: as the shards of the {@link ShardedTestRunner}, each one writes
+ * its own file, merged with {@link #merge(File, File)} once it exited.
+ */
+public class CsvReport {
+
+	private static final List<CsvReport> REPORTS = new ArrayList<CsvReport>();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread("selegen-reports") {
+			@Override
+			public void run() {
+				synchronized (REPORTS) {
+					for (CsvReport report : REPORTS) {
+						report.close();
+					}
+				}
+			}
+		});
+	}
+
+	private final File file;
+
+	private final String[] columns;
+
+	private PrintWriter writer;
+
+	private boolean failed;
+
+	public CsvReport(File file, String... columns) {
+		this.file = file;
+		this.columns = columns;
+		synchronized (REPORTS) {
+			REPORTS.add(this);
+		}
+	}
+
+	/**
+	 * Returns the report written to the file named by the system property, or null when the property
+	 * is not set.
+	 */
+	public static CsvReport forProperty(String property, String... columns) {
+		String fileName = System.getProperty(property);
+		if (fileName == null || fileName.trim().length() == 0) {
+			return null;
+		}
+		return new CsvReport(new File(fileName.trim()), columns);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public synchronized void append(Object... values) {
+		if (failed) {
+			return;
+		}
+		if (writer == null) {
+			try {
+				File parent = file.getAbsoluteFile().getParentFile();
+				parent.mkdirs();
+				boolean empty = !file.exists() || file.length() == 0;
+				writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file, true), "UTF-8"));
+				if (empty) {
+					writeLine(columns);
+				}
+			} catch (IOException e) {
+				System.err.println("[WARN] Unable to write the report " + file + " : " + e.getMessage());
+				failed = true;
+				return;
+			}
+		}
+		writeLine(values);
+	}
+
+	public synchronized void flush() {
+		if (writer != null) {
+			writer.flush();
+		}
+	}
+
+	public synchronized void close() {
+		if (writer != null) {
+			writer.close();
+			writer = null;
+		}
+	}
+
+	private void writeLine(Object[] values) {
+		StringBuilder line = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				line.append(',');
+			}
+			line.append(escape(String.valueOf(values[i])));
+		}
+		writer.println(line);
+	}
+
+	/**
+	 * Appends the lines of a report to another one, without its header, the header being written to the
+	 * report when it is empty. The merged report is deleted.
+	 */
+	public static void merge(File part, File file) throws IOException {
+		if (!part.isFile()) {
+			return;
+		}
+		String content = FileUtils.readFileToString(part, "UTF-8");
+		int header = content.indexOf('\n');
+		if (!file.exists() || file.length() == 0) {
+			file.getAbsoluteFile().getParentFile().mkdirs();
+			header = -1;
+		}
+		if (header + 1 < content.length()) {
+			OutputStream out = new FileOutputStream(file, true);
+			try {
+				out.write(content.substring(header + 1).getBytes("UTF-8"));
+			} finally {
+				IOUtils.closeQuietly(out);
+			}
+		}
+		part.delete();
+	}
+
+	/**
+	 * Reads the lines of a report, its header included.
+	 */
+	public static List<String[]> read(File file) throws IOException {
+		String content = FileUtils.readFileToString(file, "UTF-8");
+		List<String[]> lines = new ArrayList<String[]>();
+		List<String> values = new ArrayList<String>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < content.length(); i++) {
+			char c = content.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < content.length() && content.charAt(i + 1) == '"') {
+					value.append(c);
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					value.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				values.add(value.toString());
+				value.setLength(0);
+			} else if (c == '\n') {
+				values.add(value.toString());
+				value.setLength(0);
+				lines.add(values.toArray(new String[values.size()]));
+				values.clear();
+			} else if (c != '\r') {
+				value.append(c);
+			}
+		}
+		if (value.length() > 0 || !values.isEmpty()) {
+			values.add(value.toString());
+			lines.add(values.toArray(new String[values.size()]));
+		}
+		return lines;
+	}
+
+	public static String escape(String value) {
+		if (value.indexOf(',') == -1 && value.indexOf('"') == -1 && value.indexOf('\n') == -1
+		      && value.indexOf('\r') == -1) {
+			return value;
+		}
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+
+}
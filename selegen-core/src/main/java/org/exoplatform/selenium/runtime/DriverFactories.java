@@ -0,0 +1,155 @@
+package org.exoplatform.selenium.runtime;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.ie.InternetExplorerDriver;
+
+/**
+ * The browsers of the generated tests and of the interpreted suites, chosen with the selenium.browser
+ * property:
+ * <ul>
+ * <li>firefox, the default;</li>
+ * <li>htmlunit, a headless browser running in the JVM of the tests, with JavaScript enabled, which needs
+ * no display;</li>
+ * <li>chrome or googlechrome;</li>
+ * <li>iexplore or iexplorer;</li>
+ * <li>the class name of a {@link DriverFactory}, or of a WebDriver, created by its constructor without
+ * parameters.</li>
+ * </ul>
+ * As for the Selenium RC browsers, a leading * is ignored. The other browsers of Selenium RC, such as
+ * safari or opera, start firefox with a warning, as the tests did before the factories.
+ */
+public class DriverFactories {
+
+	public static final String DEFAULT_BROWSER = "firefox";
+
+	private static final Map<String, DriverFactory> FACTORIES = new LinkedHashMap<String, DriverFactory>();
+
+	/** The unknown browsers replaced by the default one, which were warned about. */
+	private static final Set<String> UNKNOWN = new HashSet<String>();
+
+	static {
+		register("firefox", new DriverFactory() {
+			public WebDriver create() {
+				return new FirefoxDriver();
+			}
+		});
+		register("htmlunit", new DriverFactory() {
+			public WebDriver create() {
+				return new HtmlUnitDriver(true);
+			}
+		});
+		DriverFactory chrome = new DriverFactory() {
+			public WebDriver create() {
+				return new ChromeDriver();
+			}
+		};
+		register("chrome", chrome);
+		register("googlechrome", chrome);
+		DriverFactory internetExplorer = new DriverFactory() {
+			public WebDriver create() {
+				return new InternetExplorerDriver();
+			}
+		};
+		register("iexplore", internetExplorer);
+		register("iexplorer", internetExplorer);
+	}
+
+	private DriverFactories() {
+	}
+
+	/**
+	 * Registers the factory of a browser, replacing the one of the same name.
+	 */
+	public static void register(String browser, DriverFactory factory) {
+		synchronized (FACTORIES) {
+			FACTORIES.put(browser, factory);
+		}
+	}
+
+	/**
+	 * Starts the browser of the selenium.browser property.
+	 */
+	public static WebDriver create() {
+		return get(System.getProperty("selenium.browser", DEFAULT_BROWSER)).create();
+	}
+
+	public static DriverFactory get(String browser) {
+		browser = browser.trim();
+		if (browser.startsWith("*")) {
+			browser = browser.substring(1);
+		}
+		if (browser.length() == 0) {
+			browser = DEFAULT_BROWSER;
+		}
+		synchronized (FACTORIES) {
+			DriverFactory factory = FACTORIES.get(browser);
+			if (factory != null) {
+				return factory;
+			}
+			if (browser.indexOf('.') == -1) {
+				if (UNKNOWN.add(browser)) {
+					System.out.println("[WARN] Unknown browser " + browser + ", expected one of " + FACTORIES.keySet()
+					      + " or the class name of a DriverFactory, " + DEFAULT_BROWSER + " is used");
+				}
+				return FACTORIES.get(DEFAULT_BROWSER);
+			}
+			factory = load(browser);
+			FACTORIES.put(browser, factory);
+			return factory;
+		}
+	}
+
+	private static DriverFactory load(String className) {
+		final Class<?> type;
+		try {
+			type = Class.forName(className, true, Thread.currentThread().getContextClassLoader());
+		} catch (ClassNotFoundException e) {
+			throw new IllegalArgumentException("Unknown browser " + className, e);
+		}
+		if (DriverFactory.class.isAssignableFrom(type)) {
+			return (DriverFactory) newInstance(type);
+		}
+		if (WebDriver.class.isAssignableFrom(type)) {
+			return new DriverFactory() {
+				public WebDriver create() {
+					return (WebDriver) newInstance(type);
+				}
+			};
+		}
+		throw new IllegalArgumentException(className + " is neither a DriverFactory nor a WebDriver");
+	}
+
+	/**
+	 * Creates the object with the constructor without parameters of its class, the exceptions of the
+	 * constructor being thrown as they are.
+	 */
+	private static Object newInstance(Class<?> type) {
+		try {
+			return type.getConstructor().newInstance();
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException("Unable to create " + type.getName() + " : " + cause, cause);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException(type.getName() + " has no public constructor without parameters", e);
+		} catch (InstantiationException e) {
+			throw new IllegalArgumentException("Unable to create " + type.getName(), e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("Unable to create " + type.getName(), e);
+		}
+	}
+
+}
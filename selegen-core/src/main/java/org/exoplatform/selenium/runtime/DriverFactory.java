@@ -0,0 +1,12 @@
+package org.exoplatform.selenium.runtime;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Starts the browser of a test, as chosen by the selenium.browser property, see {@link DriverFactories}.
+ */
+public interface DriverFactory {
+
+	WebDriver create();
+
+}
@@ -0,0 +1,282 @@
+package org.exoplatform.selenium.runtime;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverCommandProcessor;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.seleniumemulation.ElementFinder;
+import org.openqa.selenium.internal.seleniumemulation.SeleneseCommand;
+
+import com.thoughtworks.selenium.DefaultSelenium;
+import com.thoughtworks.selenium.Selenium;
+
+/**
+ * Keeps the elements found by the commands of a WebDriverBackedSelenium, so that the commands on the
+ * same locator, as the mouseOver and the click of a recorded click or a waitForVisible and the action
+ * following it, search the page once.
+ * <p>
+ * The elements are forgotten when a page is loaded or the command changes of frame or window, as
+ * open, waitForPageToLoad, refresh, goBack, selectFrame and selectWindow, and when the test calls
+ * {@link #clear(Selenium)}: the generated tests call it after these commands and the *AndWait ones, as
+ * a generated clickAndWait does not wait for the page, and the shared sessions when they are reset. A
+ * command failing on an element removed from the page since it was found searches it again, once. The
+ * presence of an element is always checked on the page, and an element replaced by the page without its
+ * previous one being removed is not seen, as the commands find the previous one.
+ * <p>
+ * The hits and misses of the caches of the JVM are logged when it exits.
+ */
+public class ElementCache {
+
+	/** The commands after which the elements of the page cannot be used anymore. */
+	private static final Set<String> NAVIGATIONS = new HashSet<String>(Arrays.asList("open", "openWindow",
+	      "refresh", "goBack", "waitForPageToLoad", "waitForFrameToLoad", "waitForPopUp", "selectFrame",
+	      "selectWindow", "selectPopUp", "deselectPopUp", "close"));
+
+	private static final AtomicLong HITS = new AtomicLong();
+
+	private static final AtomicLong MISSES = new AtomicLong();
+
+	private static final AtomicLong STALES = new AtomicLong();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread("selegen-elements") {
+			@Override
+			public void run() {
+				if (HITS.get() + MISSES.get() > 0) {
+					System.out.println("[INFO] Element cache : " + HITS.get() + " hits, " + MISSES.get() + " misses, "
+					      + STALES.get() + " stale elements");
+				}
+			}
+		});
+	}
+
+	/** The elements found on the current page, by locator. */
+	private final Map<String, WebElement> elements = new HashMap<String, WebElement>();
+
+	private ElementCache() {
+	}
+
+	/**
+	 * Makes the commands of the WebDriverBackedSelenium use a cache of their elements, once. The other
+	 * implementations of Selenium are left unchanged.
+	 */
+	public static synchronized void install(Selenium selenium) {
+		try {
+			Map<String, Object> commands = getCommands(selenium);
+			if (commands == null) {
+				return;
+			}
+			ElementCache cache = new ElementCache();
+			Map<ElementFinder, Finder> finders = new HashMap<ElementFinder, Finder>();
+			for (Map.Entry<String, Object> entry : commands.entrySet()) {
+				if (entry.getValue() instanceof CachedCommand) {
+					// already installed
+					return;
+				}
+				for (Class<?> type = entry.getValue().getClass(); type != SeleneseCommand.class && type != null; type = type
+				      .getSuperclass()) {
+					for (Field field : type.getDeclaredFields()) {
+						if (Modifier.isStatic(field.getModifiers()) || field.getType() != ElementFinder.class) {
+							continue;
+						}
+						field.setAccessible(true);
+						ElementFinder finder = (ElementFinder) field.get(entry.getValue());
+						if (finder == null) {
+							continue;
+						}
+						Finder cached = finders.get(finder);
+						if (cached == null) {
+							cached = cache.new Finder(finder);
+							finders.put(finder, cached);
+						}
+						field.set(entry.getValue(), cached);
+					}
+				}
+				entry.setValue(cache.new CachedCommand(entry.getKey(), (SeleneseCommand<?>) entry.getValue()));
+			}
+		} catch (Exception e) {
+			System.out.println("[WARN] The elements of the commands cannot be cached : " + e);
+		}
+	}
+
+	/**
+	 * Forgets the elements found by the commands of the Selenium, when a page was loaded without a command
+	 * of its processor waiting for it, as after a click or a driver.get.
+	 */
+	public static synchronized void clear(Selenium selenium) {
+		try {
+			Map<String, Object> commands = getCommands(selenium);
+			if (commands == null) {
+				return;
+			}
+			for (Object command : commands.values()) {
+				if (command instanceof CachedCommand) {
+					((CachedCommand) command).getCache().clear();
+					return;
+				}
+			}
+		} catch (Exception e) {
+			System.out.println("[WARN] The elements of the commands cannot be cleared : " + e);
+		}
+	}
+
+	/**
+	 * Returns true when the elements found before the command cannot be used after it, the page, frame or
+	 * window having changed.
+	 */
+	public static boolean isNavigation(String command) {
+		return NAVIGATIONS.contains(command) || command.endsWith("AndWait");
+	}
+
+	/**
+	 * Returns the commands of the processor of a WebDriverBackedSelenium, by name, or null for the other
+	 * implementations of Selenium.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> getCommands(Selenium selenium) throws Exception {
+		if (!(selenium instanceof DefaultSelenium)) {
+			return null;
+		}
+		Object processor = getField(DefaultSelenium.class, "commandProcessor").get(selenium);
+		if (!(processor instanceof WebDriverCommandProcessor)) {
+			return null;
+		}
+		return (Map<String, Object>) getField(WebDriverCommandProcessor.class, "seleneseMethods").get(processor);
+	}
+
+	private static Field getField(Class<?> type, String name) throws NoSuchFieldException {
+		Field field = type.getDeclaredField(name);
+		field.setAccessible(true);
+		return field;
+	}
+
+	public static long getHits() {
+		return HITS.get();
+	}
+
+	public static long getMisses() {
+		return MISSES.get();
+	}
+
+	/**
+	 * Returns the number of commands which found their element again, as it was removed from the page.
+	 */
+	public static long getStales() {
+		return STALES.get();
+	}
+
+	private synchronized WebElement get(String locator) {
+		return elements.get(locator);
+	}
+
+	private synchronized void put(String locator, WebElement element) {
+		elements.put(locator, element);
+	}
+
+	private synchronized void remove(String locator) {
+		elements.remove(locator);
+	}
+
+	private synchronized void clear() {
+		elements.clear();
+	}
+
+	private static boolean isStale(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof StaleElementReferenceException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the elements of the commands, searching the page only for the locators not found yet.
+	 */
+	private class Finder extends ElementFinder {
+
+		private final ElementFinder finder;
+
+		Finder(ElementFinder finder) {
+			this.finder = finder;
+		}
+
+		@Override
+		public WebElement findElement(WebDriver driver, String locator) {
+			WebElement element = get(locator);
+			if (element != null) {
+				HITS.incrementAndGet();
+				return element;
+			}
+			MISSES.incrementAndGet();
+			element = finder.findElement(driver, locator);
+			put(locator, element);
+			return element;
+		}
+
+		@Override
+		public void add(String strategyName, String implementation) {
+			finder.add(strategyName, implementation);
+			clear();
+		}
+
+	}
+
+	/**
+	 * Runs a command, forgetting the elements when it leaves the page, and searching its element again
+	 * when it was removed from the page.
+	 */
+	private class CachedCommand extends SeleneseCommand<Object> {
+
+		private final String name;
+
+		private final SeleneseCommand<?> command;
+
+		CachedCommand(String name, SeleneseCommand<?> command) {
+			this.name = name;
+			this.command = command;
+		}
+
+		ElementCache getCache() {
+			return ElementCache.this;
+		}
+
+		/**
+		 * Runs the command with the arguments given to {@link #apply(WebDriver, String[])}, which passes the
+		 * missing ones as null.
+		 */
+		@Override
+		protected Object handleSeleneseCommand(WebDriver driver, String locator, String value) {
+			String[] args = value != null ? new String[] {locator, value} : locator != null
+			      ? new String[] {locator} : new String[0];
+			if (name.equals("isElementPresent") && locator != null) {
+				remove(locator);
+			}
+			try {
+				return command.apply(driver, args);
+			} catch (RuntimeException e) {
+				if (!isStale(e)) {
+					throw e;
+				}
+				STALES.incrementAndGet();
+				clear();
+				return command.apply(driver, args);
+			} finally {
+				if (NAVIGATIONS.contains(name)) {
+					clear();
+				}
+			}
+		}
+
+	}
+
+}
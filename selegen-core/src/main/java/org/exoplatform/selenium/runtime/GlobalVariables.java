@@ -0,0 +1,51 @@
+package org.exoplatform.selenium.runtime;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The variables stored by storeGlobal, storeTextGlobal, storeValueGlobal and storeAttributeGlobal, as the
+ * globalStoredVars of the user extensions: they are kept for the following tests of the JVM, so that a
+ * setup test can store a session token or the ids of the created entities once. A variable stored by a
+ * test is read before the global one of the same name.
+ * <p>
+ * Each JVM has its own variables, so with forked or sharded runs the setup test must run in each of them.
+ */
+public class GlobalVariables {
+
+	private static final Map<String, String> VARIABLES = new ConcurrentHashMap<String, String>();
+
+	private GlobalVariables() {
+	}
+
+	/**
+	 * Stores the value, a null value removing the variable.
+	 */
+	public static void store(String name, String value) {
+		if (value == null) {
+			VARIABLES.remove(name);
+		} else {
+			VARIABLES.put(name, value);
+		}
+	}
+
+	public static String get(String name) {
+		String value = VARIABLES.get(name);
+		if (value == null) {
+			throw new IllegalArgumentException("Variable not stored : " + name);
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the value of the variable, or null when it is not stored.
+	 */
+	public static String find(String name) {
+		return VARIABLES.get(name);
+	}
+
+	public static void clear() {
+		VARIABLES.clear();
+	}
+
+}
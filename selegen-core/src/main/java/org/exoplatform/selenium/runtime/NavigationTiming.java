@@ -0,0 +1,268 @@
+package org.exoplatform.selenium.runtime;
+
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.io.IOUtils;
+
+import com.thoughtworks.selenium.Selenium;
+
+/**
+ * Reads the Navigation Timing of the browser after each page load of a test generated with
+ * -Dselegen.navigationTiming=true: open, clickAndWait, clickAtAndWait, selectAndWait and refresh. The
+ * times to the first byte, to the DOMContentLoaded event and to the load event of each page are written
+ * to the CSV file named by selenium.navigation.report, if any, with the URL of the page without its query.
+ * As a generated clickAndWait does not wait for the page, the load of a new page is waited for up to
+ * selenium.navigation.wait ms (5000 by default) before reading it, a command loading no page being
+ * skipped after this delay.
+ * <p>
+ * With selenium.navigation.baseline, the load of each page is compared with the one of the baseline
+ * file, written from the report of a reference run by:
+ *
+ * <pre>
+ * java org.exoplatform.selenium.runtime.NavigationTiming target/selenium-navigation.csv selenium-navigation.properties
+ * </pre>
+ *
+ * A page regresses when it loads selenium.navigation.threshold percent (20 by default) and
+ * selenium.navigation.slack ms (100 by default) slower than its baseline. The regressions are logged, and
+ * fail the test at its end with selenium.navigation.fail=true.
+ */
+public class NavigationTiming {
+
+	private static final CsvReport REPORT = CsvReport.forProperty("selenium.navigation.report", "test", "step",
+	      "command", "url", "ttfbMs", "domContentLoadedMs", "loadMs");
+
+	/** Returns the timing of the current page, empty while it is loading and none when the browser has none. */
+	private static final String SCRIPT = "(function(w) {"
+	      + " var t = w.performance && w.performance.timing;"
+	      + " return !t ? 'none' : t.loadEventEnd ? [t.navigationStart, t.responseStart, t.domContentLoadedEventEnd,"
+	      + " t.loadEventEnd, w.location.href].join(' ') : '';"
+	      + " })(selenium.browserbot.getCurrentWindow())";
+
+	private static final long WAIT = Long.getLong("selenium.navigation.wait", 5000);
+
+	private static final long POLL_INTERVAL = 100;
+
+	private static final int THRESHOLD = Integer.getInteger("selenium.navigation.threshold", 20);
+
+	private static final long SLACK = Long.getLong("selenium.navigation.slack", 100);
+
+	private static final boolean FAIL = Boolean.getBoolean("selenium.navigation.fail");
+
+	private static final Map<String, Long> BASELINE = loadBaseline(System.getProperty("selenium.navigation.baseline"));
+
+	/** The page loads of the test run by the thread. */
+	private static final ThreadLocal<NavigationTiming> CURRENT = new ThreadLocal<NavigationTiming>();
+
+	private final String test;
+
+	/** The navigation start of the last page, not recorded again when a command did not load a page. */
+	private long lastStart;
+
+	private boolean unavailable;
+
+	private final List<String> regressions = new ArrayList<String>();
+
+	private NavigationTiming(String test) {
+		this.test = test;
+	}
+
+	/**
+	 * Starts recording the page loads of the test.
+	 */
+	public static void start(String test) {
+		CURRENT.set(new NavigationTiming(test));
+	}
+
+	/**
+	 * Records the page loaded by the step, if any.
+	 */
+	public static void record(Selenium selenium, int step, String command) {
+		NavigationTiming timing = CURRENT.get();
+		if (timing == null) {
+			timing = new NavigationTiming("");
+			CURRENT.set(timing);
+		}
+		timing.read(selenium, step, command);
+	}
+
+	/**
+	 * Ends the test, failing it with selenium.navigation.fail=true when one of its pages regressed.
+	 */
+	public static void end() {
+		NavigationTiming timing = CURRENT.get();
+		CURRENT.remove();
+		if (FAIL && timing != null && !timing.regressions.isEmpty()) {
+			fail("Pages slower than their baseline : " + timing.regressions);
+		}
+	}
+
+	private void read(Selenium selenium, int step, String command) {
+		if (unavailable) {
+			return;
+		}
+		String[] values = poll(selenium);
+		if (values == null) {
+			return;
+		}
+		long start = Long.parseLong(values[0]);
+		lastStart = start;
+		long ttfb = Long.parseLong(values[1]) - start;
+		long domContentLoaded = Long.parseLong(values[2]) - start;
+		long load = Long.parseLong(values[3]) - start;
+		String url = getPage(values[4]);
+		if (REPORT != null) {
+			REPORT.append(test, step, command, url, ttfb, domContentLoaded, load);
+		}
+		Long baseline = BASELINE.get(url);
+		if (baseline != null && load > baseline * (100 + THRESHOLD) / 100 && load - baseline > SLACK) {
+			String regression = url + " loaded in " + load + "ms instead of " + baseline + "ms";
+			System.out.println("[WARN] " + test + ":" + step + " " + command + " " + regression);
+			regressions.add(regression);
+		}
+	}
+
+	/**
+	 * Returns the timing of the page loaded since the last one read, polling the browser while the page is
+	 * loading or the previous one is still shown, or null when no page is loaded within the wait.
+	 */
+	private String[] poll(Selenium selenium) {
+		long end = System.currentTimeMillis() + WAIT;
+		RuntimeException error = null;
+		while (true) {
+			try {
+				String timing = selenium.getEval(SCRIPT);
+				if ("none".equals(timing)) {
+					System.out.println("[WARN] " + test + " cannot read the navigation timing : not supported by the"
+					      + " browser");
+					unavailable = true;
+					return null;
+				}
+				String[] values = timing == null ? new String[0] : timing.trim().split(" ", 5);
+				if (values.length == 5 && Long.parseLong(values[0]) != lastStart) {
+					return values;
+				}
+				error = null;
+			} catch (RuntimeException e) {
+				// the page may be unloading
+				error = e;
+			}
+			if (System.currentTimeMillis() >= end) {
+				break;
+			}
+			try {
+				Thread.sleep(POLL_INTERVAL);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}
+		if (error != null) {
+			System.out.println("[WARN] " + test + " cannot read the navigation timing : " + error.getMessage());
+			unavailable = true;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the URL without its query and its fragment, so that the loads of a page are compared
+	 * whatever its parameters.
+	 */
+	static String getPage(String url) {
+		int end = url.length();
+		int query = url.indexOf('?');
+		if (query != -1) {
+			end = query;
+		}
+		int fragment = url.indexOf('#');
+		if (fragment != -1 && fragment < end) {
+			end = fragment;
+		}
+		return url.substring(0, end);
+	}
+
+	private static Map<String, Long> loadBaseline(String fileName) {
+		Map<String, Long> baseline = new HashMap<String, Long>();
+		if (fileName == null || fileName.trim().length() == 0) {
+			return baseline;
+		}
+		File file = new File(fileName.trim());
+		if (!file.isFile()) {
+			System.out.println("[WARN] No navigation baseline " + file);
+			return baseline;
+		}
+		Properties properties = new Properties();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(file);
+			properties.load(in);
+		} catch (IOException e) {
+			System.out.println("[WARN] Unable to read the navigation baseline " + file + " : " + e.getMessage());
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+		for (String url : properties.stringPropertyNames()) {
+			try {
+				baseline.put(url, Long.valueOf(properties.getProperty(url).trim()));
+			} catch (NumberFormatException e) {
+				System.out.println("[WARN] Invalid navigation baseline of " + url + " : " + properties.getProperty(url));
+			}
+		}
+		return baseline;
+	}
+
+	/**
+	 * Writes the baseline of the navigation reports: the median load of each page.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			throw new IllegalArgumentException("NavigationTiming navigationReport.csv... baseline.properties");
+		}
+		Map<String, List<Long>> loads = new HashMap<String, List<Long>>();
+		for (int i = 0; i < args.length - 1; i++) {
+			List<String[]> lines = CsvReport.read(new File(args[i]));
+			if (lines.isEmpty()) {
+				continue;
+			}
+			List<String> header = Arrays.asList(lines.get(0));
+			int url = header.indexOf("url");
+			int load = header.indexOf("loadMs");
+			for (String[] line : lines.subList(1, lines.size())) {
+				List<Long> values = loads.get(line[url]);
+				if (values == null) {
+					values = new ArrayList<Long>();
+					loads.put(line[url], values);
+				}
+				values.add(Long.valueOf(line[load]));
+			}
+		}
+		Properties baseline = new Properties();
+		for (Map.Entry<String, List<Long>> entry : loads.entrySet()) {
+			List<Long> values = entry.getValue();
+			Collections.sort(values);
+			baseline.setProperty(entry.getKey(), String.valueOf(values.get(values.size() / 2)));
+		}
+		File file = new File(args[args.length - 1]);
+		OutputStream out = new FileOutputStream(file);
+		try {
+			baseline.store(out, "median load of the pages, in ms");
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+		System.out.println("[INFO] Baseline of " + baseline.size() + " pages written to " + file);
+	}
+
+}
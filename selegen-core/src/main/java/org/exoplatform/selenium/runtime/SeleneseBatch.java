@@ -0,0 +1,196 @@
+package org.exoplatform.selenium.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.internal.WrapsDriver;
+
+import com.thoughtworks.selenium.Selenium;
+import com.thoughtworks.selenium.SeleniumException;
+
+/**
+ * Runs the actions of a batch command in one call to the browser instead of one call per action:
+ * <ul>
+ * <li>with a WebDriverBackedSelenium, the actions are run by one script of the driver, or one by one when
+ * the browser cannot evaluate their XPaths, as HtmlUnit;</li>
+ * <li>with a Selenium RC whose server loads the user extensions, by their batch command, called by one
+ * getEval;</li>
+ * <li>otherwise one by one.</li>
+ * </ul>
+ * The actions are the ones filling a form: type, select, check and uncheck, of elements located by id,
+ * name, identifier, css or xpath. As with Selenium RC, typing sets the value of the element and fires its
+ * change event, without the key events.
+ */
+public class SeleneseBatch {
+
+	public static final Set<String> COMMANDS = new HashSet<String>(Arrays.asList("type", "select", "check",
+	      "uncheck"));
+
+	/**
+	 * Runs the actions given as command, target and value arguments, failing on the first one. Returns
+	 * false without running them when the browser cannot evaluate their XPaths.
+	 */
+	private static final String SCRIPT = "var doc = document;\n"
+	      + "function isXPath(locator) {\n"
+	      + "  return locator.indexOf('xpath=') == 0 || locator.charAt(0) == '/' || locator.charAt(0) == '(';\n"
+	      + "}\n"
+	      + "function find(locator) {\n"
+	      + "  var e = null;\n"
+	      + "  if (locator.indexOf('id=') == 0) e = doc.getElementById(locator.substring(3));\n"
+	      + "  else if (locator.indexOf('name=') == 0) e = doc.getElementsByName(locator.substring(5))[0];\n"
+	      + "  else if (locator.indexOf('css=') == 0) e = doc.querySelector(locator.substring(4));\n"
+	      + "  else if (isXPath(locator))\n"
+	      + "    e = doc.evaluate(locator.indexOf('xpath=') == 0 ? locator.substring(6) : locator, doc, null, 9, null).singleNodeValue;\n"
+	      + "  else {\n"
+	      + "    var id = locator.indexOf('identifier=') == 0 ? locator.substring(11) : locator;\n"
+	      + "    e = doc.getElementById(id) || doc.getElementsByName(id)[0];\n"
+	      + "  }\n"
+	      + "  if (!e) throw new Error('Element ' + locator + ' not found');\n"
+	      + "  return e;\n"
+	      + "}\n"
+	      + "function fire(e, type) {\n"
+	      + "  if (doc.createEvent) {\n"
+	      + "    var event = doc.createEvent('HTMLEvents');\n"
+	      + "    event.initEvent(type, true, true);\n"
+	      + "    e.dispatchEvent(event);\n"
+	      + "  } else {\n"
+	      + "    e.fireEvent('on' + type);\n"
+	      + "  }\n"
+	      + "}\n"
+	      + "function option(e, locator) {\n"
+	      + "  var kind = 'label', text = locator, match = /^(label|value|id|index)=([\\s\\S]*)$/.exec(locator);\n"
+	      + "  if (match) { kind = match[1]; text = match[2]; }\n"
+	      + "  for (var i = 0; i < e.options.length; i++) {\n"
+	      + "    var o = e.options[i];\n"
+	      + "    if (kind == 'index' ? String(i) == text : (kind == 'label' ? o.text : o[kind]) == text) return i;\n"
+	      + "  }\n"
+	      + "  throw new Error('Option with ' + kind + ' ' + text + ' not found');\n"
+	      + "}\n"
+	      + "for (var i = 1; i < arguments.length; i += 3) {\n"
+	      + "  if (isXPath(arguments[i]) && !doc.evaluate) return false;\n"
+	      + "}\n"
+	      + "for (var i = 0; i < arguments.length; i += 3) {\n"
+	      + "  var command = arguments[i], e = find(arguments[i + 1]), value = arguments[i + 2];\n"
+	      + "  if (command == 'type') {\n"
+	      + "    fire(e, 'focus');\n"
+	      + "    e.value = e.maxLength > 0 ? value.substring(0, e.maxLength) : value;\n"
+	      + "  } else if (command == 'select') {\n"
+	      + "    fire(e, 'focus');\n"
+	      + "    e.selectedIndex = option(e, value);\n"
+	      + "  } else {\n"
+	      + "    e.checked = command == 'check';\n"
+	      + "  }\n"
+	      + "  fire(e, 'change');\n"
+	      + "}\n"
+	      + "return true;\n";
+
+	private final Selenium selenium;
+
+	/** The command, target and value of each action. */
+	private final List<String> actions = new ArrayList<String>();
+
+	public SeleneseBatch(Selenium selenium) {
+		this.selenium = selenium;
+	}
+
+	public SeleneseBatch add(String command, String target, String value) {
+		if (!COMMANDS.contains(command)) {
+			throw new IllegalArgumentException(command + " cannot be batched, expected one of " + COMMANDS);
+		}
+		actions.add(command);
+		actions.add(target);
+		actions.add(value);
+		return this;
+	}
+
+	/**
+	 * Adds the actions written as the target of a batch command: one <code>command | target | value</code>
+	 * per line.
+	 */
+	public SeleneseBatch addAll(String lines) {
+		for (String line : lines.split("\n")) {
+			if (line.trim().length() == 0) {
+				continue;
+			}
+			String[] parts = line.split(" \\|(?: |$)", -1);
+			add(parts[0].trim(), parts.length > 1 ? parts[1] : "", parts.length > 2 ? parts[2] : "");
+		}
+		return this;
+	}
+
+	public void run() {
+		if (actions.isEmpty()) {
+			return;
+		}
+		WebDriver driver = selenium instanceof WrapsDriver ? ((WrapsDriver) selenium).getWrappedDriver() : null;
+		if (driver instanceof JavascriptExecutor) {
+			Object done;
+			try {
+				done = ((JavascriptExecutor) driver).executeScript(SCRIPT, actions.toArray());
+			} catch (RuntimeException e) {
+				// a WebDriverException, or the ScriptException of HtmlUnit
+				throw new SeleniumException("Batch failed : " + e.getMessage(), e);
+			}
+			if (!Boolean.TRUE.equals(done)) {
+				runActions();
+			}
+		} else if (!runExtension()) {
+			runActions();
+		}
+	}
+
+	private void runActions() {
+		for (int i = 0; i < actions.size(); i += 3) {
+			runAction(actions.get(i), actions.get(i + 1), actions.get(i + 2));
+		}
+	}
+
+	/**
+	 * Runs the actions by the batch command of the user extensions, returning false when the server does
+	 * not have it.
+	 */
+	private boolean runExtension() {
+		StringBuilder lines = new StringBuilder();
+		for (int i = 0; i < actions.size(); i += 3) {
+			lines.append(actions.get(i)).append(" | ").append(actions.get(i + 1)).append(" | ")
+			      .append(actions.get(i + 2)).append('\n');
+		}
+		return "true".equals(selenium.getEval("typeof this.doBatch == 'function' ? (this.doBatch("
+		      + toJavaScript(lines.toString()) + "), 'true') : 'false'"));
+	}
+
+	private void runAction(String command, String target, String value) {
+		if (command.equals("type")) {
+			selenium.type(target, value);
+		} else if (command.equals("select")) {
+			selenium.select(target, value);
+		} else if (command.equals("check")) {
+			selenium.check(target);
+		} else {
+			selenium.uncheck(target);
+		}
+	}
+
+	private static String toJavaScript(String text) {
+		StringBuilder sb = new StringBuilder(text.length() + 2).append('\'');
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\\' || c == '\'') {
+				sb.append('\\').append(c);
+			} else if (c == '\n') {
+				sb.append("\\n");
+			} else if (c == '\r') {
+				sb.append("\\r");
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append('\'').toString();
+	}
+
+}
@@ -0,0 +1,76 @@
+package org.exoplatform.selenium.runtime;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Polls the condition of the generated waitFor* commands. The condition is checked at once, then again
+ * after selenium.poll.interval ms (50 by default), the interval doubling after each failed check up to
+ * selenium.poll.max ms (500 by default), until the selenium.timeout of the test.
+ * <p>
+ * The duration of each wait is written to the CSV file named by selenium.wait.report, if any.
+ */
+public class SeleneseWait {
+
+	/**
+	 * The condition of a wait, an exception being the same as false.
+	 */
+	public interface Condition {
+
+		boolean isTrue() throws Exception;
+
+	}
+
+	private static final long POLL_INTERVAL = Long.getLong("selenium.poll.interval", 50);
+
+	private static final long POLL_MAX = Math.max(POLL_INTERVAL, Long.getLong("selenium.poll.max", 500));
+
+	private static final CsvReport REPORT = CsvReport.forProperty("selenium.wait.report", "command", "target",
+	      "durationMs", "checks", "timeout");
+
+	private SeleneseWait() {
+	}
+
+	/**
+	 * Waits for the condition, failing the test after the timeout.
+	 * 
+	 * @param command the waitFor* command, for the failure message
+	 * @param target the target of the command, for the report
+	 * @param timeout the timeout in ms, as the selenium.timeout property
+	 */
+	public static void waitFor(String command, String target, String timeout, Condition condition)
+	      throws InterruptedException {
+		long timeoutMs = Long.parseLong(timeout);
+		long start = System.currentTimeMillis();
+		long interval = POLL_INTERVAL;
+		int checks = 0;
+		while (true) {
+			checks++;
+			if (isTrue(condition)) {
+				record(command, target, start, checks, false);
+				return;
+			}
+			long elapsed = System.currentTimeMillis() - start;
+			if (elapsed >= timeoutMs) {
+				record(command, target, start, checks, true);
+				fail(command + " reached a timeout (" + (timeoutMs / 1000) + "s)");
+			}
+			Thread.sleep(Math.min(interval, timeoutMs - elapsed));
+			interval = Math.min(interval * 2, POLL_MAX);
+		}
+	}
+
+	private static boolean isTrue(Condition condition) {
+		try {
+			return condition.isTrue();
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
+	private static void record(String command, String target, long start, int checks, boolean timeout) {
+		if (REPORT != null) {
+			REPORT.append(command, target, System.currentTimeMillis() - start, checks, timeout);
+		}
+	}
+
+}
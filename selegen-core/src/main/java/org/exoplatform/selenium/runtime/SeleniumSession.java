@@ -0,0 +1,64 @@
+package org.exoplatform.selenium.runtime;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverBackedSelenium;
+
+import com.thoughtworks.selenium.Selenium;
+
+/**
+ * A browser and the Selenium API driving it, shared by the tests through the {@link SessionPool}.
+ */
+public class SeleniumSession {
+
+	private final String baseUrl;
+
+	private final WebDriver driver;
+
+	private final Selenium selenium;
+
+	public SeleniumSession(String baseUrl, WebDriver driver) {
+		this.baseUrl = baseUrl;
+		this.driver = driver;
+		this.selenium = new WebDriverBackedSelenium(driver, baseUrl);
+	}
+
+	public String getBaseUrl() {
+		return baseUrl;
+	}
+
+	public WebDriver getDriver() {
+		return driver;
+	}
+
+	public Selenium getSelenium() {
+		return selenium;
+	}
+
+	/**
+	 * Brings the browser back to a blank state for the next test: the cookies are cleared and a blank
+	 * page is loaded. Returns false when this cannot be done, for instance when popups are still open.
+	 */
+	public boolean reset() {
+		try {
+			if (driver.getWindowHandles().size() != 1) {
+				return false;
+			}
+			driver.manage().deleteAllCookies();
+			driver.get("about:blank");
+			ElementCache.clear(selenium);
+			return true;
+		} catch (RuntimeException e) {
+			System.err.println("[WARN] Unable to reset the browser : " + e.getMessage());
+			return false;
+		}
+	}
+
+	public void quit() {
+		try {
+			driver.quit();
+		} catch (RuntimeException e) {
+			System.err.println("[WARN] Unable to close the browser : " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+package org.exoplatform.selenium.runtime;
+
+import java.util.LinkedList;
+
+/**
+ * The browsers kept open between the tests of a JVM. A test acquires a session, which is reset and
+ * given back to the pool when the test passes, or closed when it fails so that the next test starts
+ * with a new browser. The idle browsers are closed when the JVM exits. The browsers are
+ * started by the {@link DriverFactories}.
+ */
+public class SessionPool {
+
+	private static final LinkedList<SeleniumSession> IDLE = new LinkedList<SeleniumSession>();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread("selegen-sessions") {
+			@Override
+			public void run() {
+				synchronized (IDLE) {
+					for (SeleniumSession session : IDLE) {
+						session.quit();
+					}
+					IDLE.clear();
+				}
+			}
+		});
+	}
+
+	private SessionPool() {
+	}
+
+	/**
+	 * Returns an idle session for the base url, or a new one.
+	 */
+	public static SeleniumSession acquire(String baseUrl) {
+		synchronized (IDLE) {
+			while (!IDLE.isEmpty()) {
+				SeleniumSession session = IDLE.removeFirst();
+				if (session.getBaseUrl().equals(baseUrl)) {
+					return session;
+				}
+				session.quit();
+			}
+		}
+		return new SeleniumSession(baseUrl, DriverFactories.create());
+	}
+
+	/**
+	 * Gives the session back to the pool, closing it when it cannot be reset.
+	 */
+	public static void release(SeleniumSession session) {
+		if (!session.reset()) {
+			session.quit();
+			return;
+		}
+		synchronized (IDLE) {
+			IDLE.addFirst(session);
+		}
+	}
+
+	/**
+	 * Closes the session of a failed test.
+	 */
+	public static void discard(SeleniumSession session) {
+		session.quit();
+	}
+
+}
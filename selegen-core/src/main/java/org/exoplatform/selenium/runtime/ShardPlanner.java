@@ -0,0 +1,71 @@
+package org.exoplatform.selenium.runtime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Splits the test classes into shards of about the same duration: the classes are taken from the
+ * longest to the shortest one, each being added to the shard ending first. Classes which never ran
+ * count as the mean duration of the others.
+ */
+public class ShardPlanner {
+
+	private final TestDurations durations;
+
+	public ShardPlanner(TestDurations durations) {
+		this.durations = durations;
+	}
+
+	public List<List<String>> plan(List<String> testClasses, int shardsNumber) {
+		final long mean = durations.getMean();
+		List<String> classes = new ArrayList<String>(testClasses);
+		Collections.sort(classes, new Comparator<String>() {
+			public int compare(String class1, String class2) {
+				long duration1 = getDuration(class1, mean);
+				long duration2 = getDuration(class2, mean);
+				if (duration1 != duration2) {
+					return duration1 > duration2 ? -1 : 1;
+				}
+				return class1.compareTo(class2);
+			}
+		});
+
+		int count = Math.max(1, Math.min(shardsNumber, classes.size()));
+		List<List<String>> shards = new ArrayList<List<String>>();
+		long[] totals = new long[count];
+		for (int i = 0; i < count; i++) {
+			shards.add(new ArrayList<String>());
+		}
+		for (String testClass : classes) {
+			int shortest = 0;
+			for (int i = 1; i < count; i++) {
+				if (totals[i] < totals[shortest]) {
+					shortest = i;
+				}
+			}
+			shards.get(shortest).add(testClass);
+			totals[shortest] += getDuration(testClass, mean);
+		}
+		return shards;
+	}
+
+	/**
+	 * Returns the expected duration of the shard.
+	 */
+	public long getDuration(List<String> shard) {
+		long mean = durations.getMean();
+		long total = 0;
+		for (String testClass : shard) {
+			total += getDuration(testClass, mean);
+		}
+		return total;
+	}
+
+	private long getDuration(String testClass, long mean) {
+		Long duration = durations.get(testClass);
+		return duration != null ? duration : mean;
+	}
+
+}
@@ -0,0 +1,46 @@
+package org.exoplatform.selenium.runtime;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+
+/**
+ * Runs the test classes of one shard, forked by the {@link ShardedTestRunner}, and writes the
+ * duration of each class.
+ */
+public class ShardWorker {
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 2) {
+			throw new IllegalArgumentException("ShardWorker testClassesFile durationsFile");
+		}
+		@SuppressWarnings("unchecked")
+		List<String> testClasses = FileUtils.readLines(new File(args[0]), "UTF-8");
+		TestDurations durations = new TestDurations();
+		JUnitCore core = new JUnitCore();
+		int failures = 0;
+		for (String testClass : testClasses) {
+			long start = System.currentTimeMillis();
+			Result result = core.run(Class.forName(testClass));
+			long duration = System.currentTimeMillis() - start;
+			durations.put(testClass, duration);
+			if (result.wasSuccessful()) {
+				System.out.println("[INFO] " + testClass + " passed in " + duration + "ms");
+			} else {
+				failures++;
+				System.out.println("[ERROR] " + testClass + " failed in " + duration + "ms");
+				for (Failure failure : result.getFailures()) {
+					System.out.println(failure.getTrace());
+				}
+			}
+		}
+		durations.save(new File(args[1]));
+		System.out.println("[INFO] " + testClasses.size() + " tests, " + failures + " failed");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+}
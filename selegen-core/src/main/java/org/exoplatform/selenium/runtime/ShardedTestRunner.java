@@ -0,0 +1,196 @@
+package org.exoplatform.selenium.runtime;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Runs the generated tests of a test classes directory in parallel, in selenium.shards forked JVMs
+ * (one per processor by default), each one with its own browsers.
+ * <p>
+ * The shards are balanced with the durations of the previous runs, read from and written to the
+ * selenium.durations file. Shard i is given selenium.port + i as Selenium server port, and
+ * selenium.host.port + i * selenium.host.port.step as port of the tested server, the step being 0 by
+ * default so that all the shards test the same server.
+ * <p>
+ * Each shard writes the reports of its tests (selenium.wait.report, selenium.step.report and
+ * selenium.navigation.report) to its own file, appended to the report once the shard exited.
+ */
+public class ShardedTestRunner {
+
+	private static final String TEST_PATTERN = "Test_";
+
+	/** The properties naming the CSV reports written by the tests. */
+	private static final List<String> REPORTS = Arrays.asList("selenium.wait.report", "selenium.step.report",
+	      "selenium.navigation.report");
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 1) {
+			throw new IllegalArgumentException("ShardedTestRunner testClassesDirectory");
+		}
+		int shards = Integer.getInteger("selenium.shards", Runtime.getRuntime().availableProcessors());
+		File durationsFile = new File(System.getProperty("selenium.durations", "selenium-durations.properties"));
+		boolean passed = new ShardedTestRunner().run(new File(args[0]), shards, durationsFile);
+		System.exit(passed ? 0 : 1);
+	}
+
+	/**
+	 * Runs the tests and records their durations, returning false when a test failed.
+	 */
+	public boolean run(File testClassesDirectory, int shardsNumber, File durationsFile) throws Exception {
+		List<String> testClasses = new ArrayList<String>();
+		findTestClasses(testClassesDirectory, "", testClasses);
+		if (testClasses.isEmpty()) {
+			System.out.println("[INFO] No test found in " + testClassesDirectory);
+			return true;
+		}
+
+		TestDurations durations = TestDurations.load(durationsFile);
+		ShardPlanner planner = new ShardPlanner(durations);
+		List<List<String>> shards = planner.plan(testClasses, shardsNumber);
+
+		File workDirectory = new File(testClassesDirectory.getAbsoluteFile().getParentFile(), "selenium-shards");
+		workDirectory.mkdirs();
+		List<Process> processes = new ArrayList<Process>();
+		List<Thread> outputs = new ArrayList<Thread>();
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < shards.size(); i++) {
+			List<String> shard = shards.get(i);
+			System.out.println("[INFO] Shard " + i + " : " + shard.size() + " tests, about "
+			      + (planner.getDuration(shard) / 1000) + "s");
+			File classesFile = new File(workDirectory, "shard-" + i + ".txt");
+			FileUtils.writeLines(classesFile, "UTF-8", shard);
+			Process process = new ProcessBuilder(getWorkerCommand(i, classesFile, workDirectory)).redirectErrorStream(
+			      true).start();
+			processes.add(process);
+			outputs.add(pipe(process.getInputStream(), "[shard " + i + "] "));
+		}
+
+		boolean passed = true;
+		for (int i = 0; i < processes.size(); i++) {
+			int exitValue = processes.get(i).waitFor();
+			outputs.get(i).join();
+			if (exitValue != 0) {
+				System.out.println("[ERROR] Shard " + i + " failed");
+				passed = false;
+			}
+			File shardDurations = getDurationsFile(workDirectory, i);
+			durations.putAll(TestDurations.load(shardDurations));
+			shardDurations.delete();
+			for (String report : REPORTS) {
+				File reportFile = getReportFile(report);
+				if (reportFile != null) {
+					CsvReport.merge(getReportFile(workDirectory, reportFile, i), reportFile);
+				}
+			}
+		}
+		durations.save(durationsFile);
+		System.out.println("[INFO] " + testClasses.size() + " tests run by " + shards.size() + " shards in "
+		      + ((System.currentTimeMillis() - start) / 1000) + "s");
+		return passed;
+	}
+
+	private File getDurationsFile(File workDirectory, int shard) {
+		return new File(workDirectory, "durations-" + shard + ".properties");
+	}
+
+	/**
+	 * Returns the report file named by the property, or null when it is not set.
+	 */
+	private File getReportFile(String property) {
+		String fileName = System.getProperty(property);
+		return fileName == null || fileName.trim().length() == 0 ? null : new File(fileName.trim());
+	}
+
+	/**
+	 * Returns the file where the shard writes the report, <code>name-shard-i.csv</code>.
+	 */
+	private File getReportFile(File workDirectory, File reportFile, int shard) {
+		String name = reportFile.getName();
+		int extension = name.lastIndexOf('.');
+		return new File(workDirectory, (extension == -1 ? name : name.substring(0, extension)) + "-shard-" + shard
+		      + ".csv");
+	}
+
+	/**
+	 * Returns the command forking the JVM of the shard, with the class path and the Selenium
+	 * properties of this one, its reports being written to its own files.
+	 */
+	private List<String> getWorkerCommand(int shard, File classesFile, File workDirectory) {
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		List<String> names = new ArrayList<String>(System.getProperties().stringPropertyNames());
+		Collections.sort(names);
+		for (String name : names) {
+			if ((name.startsWith("selenium.") || name.startsWith("selegen.")) && !name.equals("selenium.port")
+			      && !name.equals("selenium.host.port") && !REPORTS.contains(name)) {
+				command.add("-D" + name + "=" + System.getProperty(name));
+			}
+		}
+		for (String report : REPORTS) {
+			File reportFile = getReportFile(report);
+			if (reportFile != null) {
+				command.add("-D" + report + "=" + getReportFile(workDirectory, reportFile, shard).getAbsolutePath());
+			}
+		}
+		int port = Integer.getInteger("selenium.port", 4444);
+		int hostPort = Integer.getInteger("selenium.host.port", 8080);
+		int hostPortStep = Integer.getInteger("selenium.host.port.step", 0);
+		command.add("-Dselenium.port=" + (port + shard));
+		command.add("-Dselenium.host.port=" + (hostPort + shard * hostPortStep));
+		command.add("-Dselenium.shard=" + shard);
+		command.add(ShardWorker.class.getName());
+		command.add(classesFile.getAbsolutePath());
+		command.add(getDurationsFile(workDirectory, shard).getAbsolutePath());
+		return command;
+	}
+
+	private Thread pipe(final InputStream in, final String prefix) {
+		Thread thread = new Thread("selegen-" + prefix.trim()) {
+			@Override
+			public void run() {
+				BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+				try {
+					String line;
+					while ((line = reader.readLine()) != null) {
+						System.out.println(prefix + line);
+					}
+				} catch (IOException e) {
+					System.err.println(prefix + "[WARN] " + e.getMessage());
+				} finally {
+					IOUtils.closeQuietly(reader);
+				}
+			}
+		};
+		thread.start();
+		return thread;
+	}
+
+	private void findTestClasses(File directory, String packageName, List<String> testClasses) throws IOException {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			throw new IOException("Not a test classes directory : " + directory);
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			String name = file.getName();
+			if (file.isDirectory()) {
+				findTestClasses(file, packageName + name + ".", testClasses);
+			} else if (name.startsWith(TEST_PATTERN) && name.endsWith(".class") && name.indexOf('$') == -1) {
+				testClasses.add(packageName + name.substring(0, name.length() - ".class".length()));
+			}
+		}
+	}
+
+}
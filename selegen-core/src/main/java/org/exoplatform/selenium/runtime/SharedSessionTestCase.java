@@ -0,0 +1,81 @@
+package org.exoplatform.selenium.runtime;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.rules.MethodRule;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.openqa.selenium.WebDriver;
+
+import com.thoughtworks.selenium.Selenium;
+
+/**
+ * Base class of the tests generated with -Dselegen.reuseSession=true: the browser is taken from the
+ * {@link SessionPool} instead of being started and closed by each test.
+ */
+public abstract class SharedSessionTestCase {
+
+	protected WebDriver driver;
+
+	protected Selenium selenium;
+
+	public String timeout = "30000";
+
+	public int timeoutSecInt = 30;
+
+	public String host = "localhost";
+
+	public String hostPort = "8080";
+
+	public String speed = "100";
+
+	private SeleniumSession session;
+
+	/**
+	 * Gives the session back once the test and its @After methods ran, closing it when the test failed.
+	 */
+	@Rule
+	public MethodRule sessionRule = new MethodRule() {
+		public Statement apply(final Statement base, FrameworkMethod method, Object target) {
+			return new Statement() {
+				@Override
+				public void evaluate() throws Throwable {
+					boolean passed = false;
+					try {
+						base.evaluate();
+						passed = true;
+					} finally {
+						releaseSession(passed);
+					}
+				}
+			};
+		}
+	};
+
+	@Before
+	public void startSelenium() {
+		timeout = System.getProperty("selenium.timeout", timeout);
+		timeoutSecInt = Integer.parseInt(timeout) / 1000;
+		speed = System.getProperty("selenium.speed", speed);
+		host = System.getProperty("selenium.host", host);
+		hostPort = System.getProperty("selenium.host.port", hostPort);
+		session = SessionPool.acquire("http://" + host + ":" + hostPort);
+		driver = session.getDriver();
+		selenium = session.getSelenium();
+	}
+
+	private void releaseSession(boolean passed) {
+		if (session == null) {
+			return;
+		}
+		if (passed) {
+			SessionPool.release(session);
+		} else {
+			SessionPool.discard(session);
+		}
+		session = null;
+		driver = null;
+		selenium = null;
+	}
+
+}
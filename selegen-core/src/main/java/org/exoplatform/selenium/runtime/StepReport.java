@@ -0,0 +1,140 @@
+package org.exoplatform.selenium.runtime;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranks the slowest steps, commands and locators of the step reports written by {@link StepTimer}:
+ *
+ * <pre>
+ * java org.exoplatform.selenium.runtime.StepReport target/selenium-steps.csv [other reports...]
+ * </pre>
+ *
+ * The steps are ranked by their mean duration, the commands and the locators by their total duration,
+ * selenium.step.top lines being printed for each (20 by default).
+ */
+public class StepReport {
+
+	/**
+	 * The durations of the steps sharing a key.
+	 */
+	static class Stats {
+
+		final String key;
+
+		int count;
+
+		long total;
+
+		long max;
+
+		Stats(String key) {
+			this.key = key;
+		}
+
+		void add(long duration) {
+			count++;
+			total += duration;
+			max = Math.max(max, duration);
+		}
+
+		long getMean() {
+			return count == 0 ? 0 : total / count;
+		}
+
+	}
+
+	private final Map<String, Stats> steps = new HashMap<String, Stats>();
+
+	private final Map<String, Stats> commands = new HashMap<String, Stats>();
+
+	private final Map<String, Stats> locators = new HashMap<String, Stats>();
+
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			throw new IllegalArgumentException("StepReport stepReport.csv...");
+		}
+		StepReport report = new StepReport();
+		for (String arg : args) {
+			report.read(new File(arg));
+		}
+		report.print(Integer.getInteger("selenium.step.top", 20));
+	}
+
+	public void read(File file) throws Exception {
+		List<String[]> lines = CsvReport.read(file);
+		if (lines.isEmpty()) {
+			return;
+		}
+		List<String> header = Arrays.asList(lines.get(0));
+		int test = header.indexOf("test");
+		int step = header.indexOf("step");
+		int command = header.indexOf("command");
+		int locator = header.indexOf("locator");
+		int duration = header.indexOf("durationMs");
+		if (test == -1 || step == -1 || command == -1 || locator == -1 || duration == -1) {
+			throw new IllegalArgumentException("Not a step report : " + file);
+		}
+		for (String[] line : lines.subList(1, lines.size())) {
+			if (line.length < header.size()) {
+				System.err.println("[WARN] Incomplete line in " + file + " : " + Arrays.toString(line));
+				continue;
+			}
+			add(line[test], line[step], line[command], line[locator], Long.parseLong(line[duration]));
+		}
+	}
+
+	public void add(String test, String step, String command, String locator, long duration) {
+		get(steps, test + " #" + step + " " + command + " " + locator).add(duration);
+		get(commands, command).add(duration);
+		if (locator.length() > 0) {
+			get(locators, locator).add(duration);
+		}
+	}
+
+	private static Stats get(Map<String, Stats> stats, String key) {
+		Stats result = stats.get(key);
+		if (result == null) {
+			result = new Stats(key);
+			stats.put(key, result);
+		}
+		return result;
+	}
+
+	public void print(int top) {
+		System.out.println("[INFO] Slowest steps (mean ms, max ms, runs)");
+		for (Stats stats : rank(steps, top, true)) {
+			System.out.println(String.format("%8d %8d %5d  %s", stats.getMean(), stats.max, stats.count, stats.key));
+		}
+		System.out.println("[INFO] Slowest commands (total ms, mean ms, count)");
+		for (Stats stats : rank(commands, top, false)) {
+			System.out.println(String.format("%8d %8d %5d  %s", stats.total, stats.getMean(), stats.count, stats.key));
+		}
+		System.out.println("[INFO] Slowest locators (total ms, mean ms, count)");
+		for (Stats stats : rank(locators, top, false)) {
+			System.out.println(String.format("%8d %8d %5d  %s", stats.total, stats.getMean(), stats.count, stats.key));
+		}
+	}
+
+	private static List<Stats> rank(Map<String, Stats> stats, int top, final boolean byMean) {
+		List<Stats> ranked = new ArrayList<Stats>(stats.values());
+		Collections.sort(ranked, new Comparator<Stats>() {
+			public int compare(Stats s1, Stats s2) {
+				long d1 = byMean ? s1.getMean() : s1.total;
+				long d2 = byMean ? s2.getMean() : s2.total;
+				if (d1 != d2) {
+					return d1 > d2 ? -1 : 1;
+				}
+				return s1.key.compareTo(s2.key);
+			}
+		});
+		return ranked.subList(0, Math.min(top, ranked.size()));
+	}
+
+}
@@ -0,0 +1,47 @@
+package org.exoplatform.selenium.runtime;
+
+/**
+ * Times the steps of a test generated with -Dselegen.instrument=true. Each step ends when the next one
+ * starts, or when the test ends, and its duration is written to the CSV file named by
+ * selenium.step.report, if any. The steps are ranked by {@link StepReport}.
+ */
+public class StepTimer {
+
+	private static final CsvReport REPORT = CsvReport.forProperty("selenium.step.report", "test", "step",
+	      "command", "locator", "durationMs");
+
+	private final String test;
+
+	private int step;
+
+	private String command;
+
+	private String locator;
+
+	private long start;
+
+	public StepTimer(String test) {
+		this.test = test;
+	}
+
+	public void step(int step, String command, String locator) {
+		long now = System.nanoTime();
+		record(now);
+		this.step = step;
+		this.command = command;
+		this.locator = locator;
+		this.start = now;
+	}
+
+	public void end() {
+		record(System.nanoTime());
+		command = null;
+	}
+
+	private void record(long now) {
+		if (REPORT != null && command != null) {
+			REPORT.append(test, step, command, locator, (now - start) / 1000000);
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+package org.exoplatform.selenium.runtime;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * The duration in ms of each test class, as measured by the previous runs, stored as a properties
+ * file.
+ */
+public class TestDurations {
+
+	private final Map<String, Long> durations = new TreeMap<String, Long>();
+
+	public static TestDurations load(File file) throws IOException {
+		TestDurations testDurations = new TestDurations();
+		if (file.exists()) {
+			Properties properties = new Properties();
+			InputStream in = new FileInputStream(file);
+			try {
+				properties.load(in);
+			} finally {
+				IOUtils.closeQuietly(in);
+			}
+			for (String testClass : properties.stringPropertyNames()) {
+				try {
+					testDurations.put(testClass, Long.parseLong(properties.getProperty(testClass).trim()));
+				} catch (NumberFormatException e) {
+					System.err.println("[WARN] Invalid duration of " + testClass + " in " + file);
+				}
+			}
+		}
+		return testDurations;
+	}
+
+	public synchronized void put(String testClass, long duration) {
+		durations.put(testClass, duration);
+	}
+
+	public synchronized void putAll(TestDurations testDurations) {
+		durations.putAll(testDurations.durations);
+	}
+
+	/**
+	 * Returns the duration of the test class, or null when it never ran.
+	 */
+	public synchronized Long get(String testClass) {
+		return durations.get(testClass);
+	}
+
+	/**
+	 * Returns the mean duration of the known classes, or 1 when none is.
+	 */
+	public synchronized long getMean() {
+		if (durations.isEmpty()) {
+			return 1;
+		}
+		long total = 0;
+		for (Long duration : durations.values()) {
+			total += duration;
+		}
+		return Math.max(1, total / durations.size());
+	}
+
+	public synchronized void save(File file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		lines.add("# Duration in ms of the Selenium tests, used to balance the shards");
+		for (Map.Entry<String, Long> entry : durations.entrySet()) {
+			lines.add(entry.getKey() + "=" + entry.getValue());
+		}
+		File parent = file.getAbsoluteFile().getParentFile();
+		parent.mkdirs();
+		FileUtils.writeLines(file, "ISO-8859-1", lines);
+	}
+
+	public synchronized Map<String, Long> asMap() {
+		return Collections.unmodifiableMap(new TreeMap<String, Long>(durations));
+	}
+
+}
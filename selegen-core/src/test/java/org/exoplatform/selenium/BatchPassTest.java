@@ -0,0 +1,33 @@
+package org.exoplatform.selenium;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class BatchPassTest {
+
+	@Test
+	public void testBatchIdentifiers() throws Exception {
+		PassRun run = new PassRun(new BatchPass(), "type | login | root", "type | identifier=password | gtn",
+		      "check | id=remember | ", "clickAndWait | signin | ");
+		assertEquals(Arrays.asList(
+		      "11: batch | type | login | root\ntype | identifier=password | gtn\ncheck | id=remember |  | ",
+		      "14: clickAndWait | signin | "), run.commands);
+		assertEquals(1, run.result.get(0).getIndex());
+		assertEquals(Arrays.asList(
+		      "Test_Pass.html:12 type \"identifier=password\" merged into the batch of line 11",
+		      "Test_Pass.html:13 check \"id=remember\" merged into the batch of line 11"), run.reports);
+	}
+
+	@Test
+	public void testKeepOtherStrategies() throws Exception {
+		PassRun run = new PassRun(new BatchPass(), "type | login | root", "type | ui=loginPages::password() | gtn",
+		      "type | alt=Search | x", "type | link=Home | x", "type | name=q value=a | x", "type | dom=document.f.q | x");
+		assertEquals(6, run.commands.size());
+		assertEquals(Collections.emptyList(), run.reports);
+	}
+
+}
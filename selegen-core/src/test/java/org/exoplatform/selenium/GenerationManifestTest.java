@@ -0,0 +1,147 @@
+package org.exoplatform.selenium;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GenerationManifestTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private GenerationManifest save(String signature, String... scripts) throws Exception {
+		GenerationManifest manifest = new GenerationManifest(folder.getRoot(), signature);
+		for (int i = 0; i < scripts.length; i += 2) {
+			manifest.generated(scripts[i], scripts[i + 1]);
+		}
+		manifest.save();
+		return manifest;
+	}
+
+	@Test
+	public void testSkipUnchanged() throws Exception {
+		save("v1", "Test_A.html", "a1");
+		GenerationManifest manifest = new GenerationManifest(folder.getRoot(), "v1");
+		assertTrue(manifest.isUpToDate("Test_A.html", "a1", true));
+		assertFalse(manifest.isUpToDate("Test_A.html", "a2", true));
+		// the output was deleted
+		assertFalse(manifest.isUpToDate("Test_A.html", "a1", false));
+		assertFalse(manifest.isUpToDate("Test_B.html", "b1", true));
+	}
+
+	@Test
+	public void testRemoveDeleted() throws Exception {
+		save("v1", "Test_A.html", "a1", "Test_B.html", "b1", "sub/Test_C.html", "c1");
+		GenerationManifest manifest = new GenerationManifest(folder.getRoot(), "v1");
+		assertTrue(manifest.isUpToDate("Test_A.html", "a1", true));
+		manifest.generated("Test_D.html", "d1");
+		assertEquals(Arrays.asList("Test_B.html", "sub/Test_C.html"), manifest.getRemovedScripts());
+		manifest.save();
+		manifest = new GenerationManifest(folder.getRoot(), "v1");
+		assertTrue(manifest.isUpToDate("Test_A.html", "a1", true));
+		assertTrue(manifest.isUpToDate("Test_D.html", "d1", true));
+		assertEquals(Collections.emptyList(), manifest.getRemovedScripts());
+	}
+
+	@Test
+	public void testKeepPrevious() throws Exception {
+		save("v1", "Test_A.html", "a1", "Test_B.html", "b1");
+		GenerationManifest manifest = new GenerationManifest(folder.getRoot(), "v1");
+		manifest.generated("Test_A.html", "a2");
+		manifest.keepPrevious();
+		manifest.save();
+		manifest = new GenerationManifest(folder.getRoot(), "v1");
+		assertFalse(manifest.isUpToDate("Test_A.html", "a1", true));
+		assertTrue(manifest.isUpToDate("Test_A.html", "a2", true));
+		assertTrue(manifest.isUpToDate("Test_B.html", "b1", true));
+	}
+
+	@Test
+	public void testSignatureChange() throws Exception {
+		save("v1", "Test_A.html", "a1");
+		GenerationManifest manifest = new GenerationManifest(folder.getRoot(), "v2");
+		assertFalse(manifest.isUpToDate("Test_A.html", "a1", true));
+		// the outputs of the previous generator are overwritten, not removed
+		assertEquals(Collections.emptyList(), manifest.getRemovedScripts());
+	}
+
+	@Test
+	public void testSaveOnlyChangesWithTheScripts() throws Exception {
+		File file = new File(folder.getRoot(), GenerationManifest.MANIFEST_FILE);
+		save("v1", "Test_B.html", "b1", "Test_A.html", "a1");
+		String content = FileUtils.readFileToString(file, "UTF-8");
+		save("v1", "Test_A.html", "a1", "Test_B.html", "b1");
+		assertEquals(content, FileUtils.readFileToString(file, "UTF-8"));
+	}
+
+	@Test
+	public void testWriteOnlyIfDifferent() throws Exception {
+		FileSourceSink sink = new FileSourceSink(folder.getRoot());
+		File test = sink.getTestFile("pkg/Test_A");
+		write(sink, "pkg/Test_A", "class Test_A {}\n");
+		assertTrue(test.setLastModified(1000000000000L));
+		write(sink, "pkg/Test_A", "class Test_A {}\n");
+		assertEquals(1000000000000L, test.lastModified());
+		write(sink, "pkg/Test_A", "class Test_A { }\n");
+		assertEquals("class Test_A { }\n", FileUtils.readFileToString(test, "UTF-8"));
+		assertFalse(new File(test.getPath() + ".tmp").exists());
+	}
+
+	private static void write(TestSourceSink sink, String test, String source) throws Exception {
+		Writer writer = sink.open(test);
+		writer.write(source);
+		writer.close();
+		sink.commit(test, writer);
+	}
+
+	@Test
+	public void testFailedRunKeepsTheRemovedScripts() throws Exception {
+		File suite = folder.newFolder("suite");
+		File output = folder.newFolder("output");
+		FileUtils.writeStringToFile(new File(suite, "Test_A.html"), script("Test_A"), "UTF-8");
+		FileUtils.writeStringToFile(new File(suite, "Test_B.html"), script("Test_B"), "UTF-8");
+		newGenerator(suite, output).run();
+		assertTrue(new File(output, "Test_B.java").exists());
+
+		new File(suite, "Test_B.html").delete();
+		FileUtils.writeStringToFile(new File(suite, "Test_C.html"), "<html><body><table>", "UTF-8");
+		try {
+			newGenerator(suite, output).run();
+			fail();
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid script"));
+		}
+
+		new File(suite, "Test_C.html").delete();
+		SeleniumTestCaseGenerator generator = newGenerator(suite, output);
+		generator.run();
+		assertFalse(new File(output, "Test_B.java").exists());
+		assertTrue(new File(output, "Test_A.java").exists());
+		assertEquals(1, generator.getTestsUpToDate());
+	}
+
+	private static SeleniumTestCaseGenerator newGenerator(File suite, File output) throws Exception {
+		SeleniumTestCaseGenerator generator = new SeleniumTestCaseGenerator(suite.getPath(), output.getPath());
+		generator.setThreads(1);
+		generator.setIncremental(true);
+		return generator;
+	}
+
+	private static String script(String name) {
+		return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<html><head><title>" + name + "</title></head><body>\n"
+		      + "<table><thead><tr><td>" + name + "</td></tr></thead><tbody>\n"
+		      + "<tr><td>echo</td><td>" + name + "</td><td></td></tr>\n</tbody></table></body></html>\n";
+	}
+
+}
@@ -0,0 +1,52 @@
+package org.exoplatform.selenium;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class LocatorAnalyzerTest {
+
+	@Test
+	public void testRewriteIdAndName() {
+		assertEquals("id=login", LocatorAnalyzer.rewrite("//*[@id='login']"));
+		assertEquals("name=password", LocatorAnalyzer.rewrite("xpath=//*[@name=\"password\"]"));
+	}
+
+	@Test
+	public void testRewriteValueWithSpace() {
+		// name=a b would filter the elements named a by the value b
+		assertEquals("css=*[name='a b']", LocatorAnalyzer.rewrite("//*[@name='a b']"));
+		assertEquals("css=*[id='a b']", LocatorAnalyzer.rewrite("//*[@id='a b']"));
+	}
+
+	@Test
+	public void testRewriteContains() {
+		assertEquals("css=input[class*='btn']", LocatorAnalyzer.rewrite("//input[contains(@class, 'btn')]"));
+		assertEquals("css=a[class*='x'][title='y']", LocatorAnalyzer.rewrite("//a[contains(@class,'x') and @title='y']"));
+		assertNull(LocatorAnalyzer.rewrite("//input[contains(@class, '')]"));
+	}
+
+	@Test
+	public void testRewritePaths() {
+		assertEquals("css=div#menu a", LocatorAnalyzer.rewrite("//div[@id='menu']//a"));
+		assertEquals("css=html > body > div", LocatorAnalyzer.rewrite("/html/body/div"));
+		assertNull(LocatorAnalyzer.rewrite("/body/div"));
+		assertNull(LocatorAnalyzer.rewrite("//div[1]"));
+		assertNull(LocatorAnalyzer.rewrite("//div[text()='x']"));
+	}
+
+	@Test
+	public void testRewriteTagCase() {
+		assertNull(LocatorAnalyzer.rewrite("//DIV[@id='menu']"));
+		assertEquals("css=div#Menu", LocatorAnalyzer.rewrite("//div[@id='Menu']"));
+	}
+
+	@Test
+	public void testRewriteOtherLocators() {
+		assertNull(LocatorAnalyzer.rewrite("id=login"));
+		assertNull(LocatorAnalyzer.rewrite("css=div"));
+		assertNull(LocatorAnalyzer.rewrite("link=Sign in"));
+	}
+
+}
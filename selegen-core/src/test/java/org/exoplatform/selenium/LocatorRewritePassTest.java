@@ -0,0 +1,38 @@
+package org.exoplatform.selenium;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class LocatorRewritePassTest {
+
+	@Test
+	public void testRewriteLocators() throws Exception {
+		PassRun run = new PassRun(new LocatorRewritePass(), "click | //*[@id='save'] | ",
+		      "type | xpath=//input[@name='q'] | selenium", "dragAndDropToObject | //div[@id='a'] | //div[@id='b']",
+		      "verifyText | //div[@id='menu']//a | Home");
+		assertEquals(Arrays.asList("11: click | id=save | ", "12: type | css=input[name='q'] | selenium",
+		      "13: dragAndDropToObject | css=div#a | css=div#b", "14: verifyText | css=div#menu a | Home"),
+		      run.commands);
+		assertEquals(Arrays.asList("Test_Pass.html:11 click \"//*[@id='save']\" rewritten as \"id=save\"",
+		      "Test_Pass.html:12 type \"xpath=//input[@name='q']\" rewritten as \"css=input[name='q']\"",
+		      "Test_Pass.html:13 dragAndDropToObject \"//div[@id='a']\" rewritten as \"css=div#a\"",
+		      "Test_Pass.html:13 dragAndDropToObject \"//div[@id='b']\" rewritten as \"css=div#b\"",
+		      "Test_Pass.html:14 verifyText \"//div[@id='menu']//a\" rewritten as \"css=div#menu a\""), run.reports);
+	}
+
+	@Test
+	public void testKeepOtherParameters() throws Exception {
+		String[] commands = {"open | //*[@id='save'] | ", "type | id=q | //*[@id='save']", "click | //div[1] | ",
+		      "echo | //*[@id='x'] | ", "verifyTextPresent | //*[@id='x'] | ", "click | link=Home | "};
+		PassRun run = new PassRun(new LocatorRewritePass(), commands);
+		assertEquals(6, run.result.size());
+		assertEquals(0, run.reports.size());
+		for (int i = 0; i < commands.length; i++) {
+			assertEquals((11 + i) + ": " + commands[i], run.commands.get(i));
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+package org.exoplatform.selenium;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs an optimization pass on commands written as <code>command | target | value</code>, the command of
+ * index i being at line 10 + i, and keeps the commands it returns and the rewrites it reports.
+ */
+class PassRun {
+
+	/** The returned commands, as <code>line: command | target | value</code>. */
+	final List<String> commands = new ArrayList<String>();
+
+	/** The reported rewrites, without their [OPT] prefix. */
+	final List<String> reports = new ArrayList<String>();
+
+	final List<SeleneseCommand> result;
+
+	PassRun(OptimizationPass pass, String... lines) throws Exception {
+		List<SeleneseCommand> input = new ArrayList<SeleneseCommand>();
+		for (String line : lines) {
+			String[] parts = line.split(" \\| ", -1);
+			input.add(new SeleneseCommand(input.size() + 1, input.size() + 11, parts[0], parts[1], parts[2]));
+		}
+		List<SeleneseCommand> copy = new ArrayList<SeleneseCommand>(input);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PrintStream stdout = System.out;
+		System.setOut(new PrintStream(out, true, "UTF-8"));
+		try {
+			result = pass.apply("Test_Pass.html", input);
+		} finally {
+			System.setOut(stdout);
+		}
+		if (!input.equals(copy)) {
+			throw new AssertionError("The commands given to " + pass.getName() + " were changed");
+		}
+		for (SeleneseCommand command : result) {
+			commands.add(command.getLine() + ": " + command);
+		}
+		for (String report : out.toString("UTF-8").split("\r?\n")) {
+			if (report.startsWith("[OPT] ")) {
+				reports.add(report.substring(6));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,34 @@
+package org.exoplatform.selenium;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class RedundantMouseOverPassTest {
+
+	@Test
+	public void testRemoveMouseOverBeforeClick() throws Exception {
+		PassRun run = new PassRun(new RedundantMouseOverPass(), "mouseOver | id=menu | ", "click | id=menu | ",
+		      "mouseOver | link=Home | ", " |  | ", "clickAndWait | link=Home | ", "mouseOver | id=a | ",
+		      "mouseOver | id=a | ");
+		assertEquals(Arrays.asList("12: click | id=menu | ", "14:  |  | ", "15: clickAndWait | link=Home | ",
+		      "17: mouseOver | id=a | "), run.commands);
+		assertEquals(Arrays.asList(
+		      "Test_Pass.html:11 mouseOver \"id=menu\" removed, done again by the click of line 12",
+		      "Test_Pass.html:13 mouseOver \"link=Home\" removed, done again by the clickAndWait of line 15",
+		      "Test_Pass.html:16 mouseOver \"id=a\" removed, done again by the mouseOver of line 17"), run.reports);
+	}
+
+	@Test
+	public void testKeepOtherMouseOvers() throws Exception {
+		String[] commands = {"mouseOver | id=menu | ", "click | id=other | ", "mouseOver | id=menu | ",
+		      "type | id=menu | x", "mouseOver | id=menu | ", "doubleClick | id=menu | ", "mouseOver | id=last | "};
+		PassRun run = new PassRun(new RedundantMouseOverPass(), commands);
+		assertEquals(7, run.commands.size());
+		assertEquals(Collections.emptyList(), run.reports);
+	}
+
+}
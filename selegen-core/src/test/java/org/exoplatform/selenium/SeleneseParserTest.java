@@ -0,0 +1,125 @@
+package org.exoplatform.selenium;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SeleneseParserTest {
+
+	private static final String HEAD = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+	      + "<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Strict//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd\">\n"
+	      + "<html xmlns=\"http://www.w3.org/1999/xhtml\" xml:lang=\"en\" lang=\"en\">\n"
+	      + "<head profile=\"http://selenium-ide.openqa.org/profiles/test-case\">\n"
+	      + "<title>Test_Parser</title>\n"
+	      + "</head>\n"
+	      + "<body>\n"
+	      + "<table cellpadding=\"1\" cellspacing=\"1\" border=\"1\">\n"
+	      + "<thead>\n"
+	      + "<tr><td rowspan=\"1\" colspan=\"3\">Parser</td></tr>\n"
+	      + "</thead><tbody>\n";
+
+	private static final String TAIL = "</tbody></table>\n</body>\n</html>\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String title;
+
+	private String caption;
+
+	private final List<SeleneseCommand> commands = new ArrayList<SeleneseCommand>();
+
+	private void parse(String body) throws Exception {
+		File script = new File(folder.getRoot(), "Test_Parser.html");
+		FileUtils.writeStringToFile(script, HEAD + body + TAIL, "UTF-8");
+		new SeleneseParser().parse(script, new SeleneseHandler() {
+			public void header(String title, String caption) {
+				SeleneseParserTest.this.title = title;
+				SeleneseParserTest.this.caption = caption;
+			}
+
+			public void command(SeleneseCommand command) {
+				commands.add(command);
+			}
+		});
+	}
+
+	private void assertCommand(int index, int line, String name, String target, String value) {
+		SeleneseCommand command = commands.get(index - 1);
+		assertEquals(index, command.getIndex());
+		assertEquals(line, command.getLine());
+		assertEquals(name, command.getName());
+		assertEquals(target, command.getTarget());
+		assertEquals(value, command.getValue());
+	}
+
+	@Test
+	public void testRecordedLayout() throws Exception {
+		parse("<tr>\n\t<td>open</td>\n\t<td>/portal/public/classic</td>\n\t<td></td>\n</tr>\n"
+		      + "<tr>\n\t<td>type</td>\n\t<td>username</td>\n\t<td>root</td>\n</tr>\n");
+		assertEquals("Test_Parser", title);
+		assertEquals("Parser", caption);
+		assertEquals(2, commands.size());
+		assertCommand(1, 12, "open", "/portal/public/classic", "");
+		assertCommand(2, 17, "type", "username", "root");
+	}
+
+	@Test
+	public void testEntities() throws Exception {
+		parse("<tr>\n\t<td>verifyText</td>\n\t<td>//a[@title=&quot;a &amp; b&quot;]</td>\n"
+		      + "\t<td>&lt;b&gt;&nbsp;caf&eacute; &#39;x&#39; &#x263A;</td>\n</tr>\n");
+		assertCommand(1, 12, "verifyText", "//a[@title=\"a & b\"]", "<b> café 'x' ☺");
+	}
+
+	@Test
+	public void testReformattedLayout() throws Exception {
+		parse("<tr><td>open</td><td>/</td><td></td></tr>\n"
+		      + "  <tr>\n    <td>\n      click\n    </td>\n    <td>\n      id=save\n    </td>\n    <td>\n    </td>\n  </tr>\n"
+		      + "<tr><td>type</td>\n<td>q</td>\n<td>a b</td></tr>\n");
+		assertEquals(3, commands.size());
+		assertCommand(1, 12, "open", "/", "");
+		assertCommand(2, 13, "click", "id=save", "");
+		assertCommand(3, 23, "type", "q", "a b");
+	}
+
+	@Test
+	public void testLineBreaks() throws Exception {
+		parse("<tr>\n\t<td>type</td>\n\t<td>comment</td>\n\t<td>first<br />second<br/>  third</td>\n</tr>\n"
+		      + "<tr>\n  <td>type</td>\n  <td>comment</td>\n  <td>\n    one<br />two\n  </td>\n</tr>\n");
+		assertCommand(1, 12, "type", "comment", "first\nsecond\n  third");
+		assertCommand(2, 17, "type", "comment", "one\ntwo");
+	}
+
+	@Test
+	public void testEmptyCells() throws Exception {
+		parse("<tr>\n\t<td>refresh</td>\n\t<td></td>\n\t<td/>\n</tr>\n" + "<tr>\n\t<td>close</td>\n</tr>\n"
+		      + "<tr>\n\t<td></td>\n\t<td></td>\n\t<td></td>\n</tr>\n" + "<tr>\n\t<td>type</td>\n\t<td>q</td>\n\t<td> </td>\n</tr>\n");
+		assertEquals(4, commands.size());
+		assertCommand(1, 12, "refresh", "", "");
+		assertCommand(2, 17, "close", "", "");
+		assertCommand(3, 20, "", "", "");
+		// a value without layout is kept as recorded
+		assertCommand(4, 25, "type", "q", " ");
+	}
+
+	@Test
+	public void testInvalidScript() throws Exception {
+		try {
+			parse("<tr>\n\t<td>open</td>\n\t<td>/</td>\n</tbody>\n");
+			fail();
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid script "));
+			assertTrue(e.getMessage(), e.getMessage().contains("Test_Parser.html:15 "));
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+package org.exoplatform.selenium;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.exoplatform.selenium.runtime.GlobalVariables;
+import org.junit.After;
+import org.junit.Test;
+
+public class VariableInterpolatorTest {
+
+	private final VariableInterpolator interpolator = new VariableInterpolator();
+
+	@After
+	public void tearDown() {
+		GlobalVariables.clear();
+	}
+
+	@Test
+	public void testVariables() {
+		assertEquals("Hello \" + user$name + \"!", interpolator.toJavaString("Hello ${user.name}!"));
+		assertEquals("//a[@id='\" + id + \"']", interpolator.toJavaString("//a[@id=storedVars['id']]"));
+		assertEquals("'\" + id + \"'", interpolator.toJavaString("storedVars[\"id\"]"));
+		assertEquals("\" + _1st + \"\" + class_ + \"", interpolator.toJavaString("${1st}${class}"));
+	}
+
+	@Test
+	public void testNotVariables() {
+		assertEquals("${} ${a b} $name storedVars[id] storedVars['a'", interpolator
+		      .toJavaString("${} ${a b} $name storedVars[id] storedVars['a'"));
+	}
+
+	@Test
+	public void testLineBreaks() {
+		assertEquals("a\\nb\\nc\\nd", interpolator.toJavaString("a\\nb<br />c\nd"));
+		assertEquals("a<br/>b", interpolator.toJavaString("a<br/>b"));
+	}
+
+	@Test
+	public void testEscapes() {
+		assertEquals("say \\\"hi\\\"", interpolator.toJavaString("say \"hi\""));
+		assertEquals("C:\\\\temp\\\\x", interpolator.toJavaString("C:\\temp\\x"));
+		assertEquals("a\\\\", interpolator.toJavaString("a\\"));
+		assertEquals("say \\\"hi\\\"\\n", VariableInterpolator.escape("say \"hi\"\n"));
+	}
+
+	@Test
+	public void testGlobalFallback() {
+		Set<String> locals = new HashSet<String>(Arrays.asList("user$name"));
+		assertEquals("\" + user$name + \" \" + GlobalVariables.get(\"portal.url\") + \"", interpolator.toJavaString(
+		      "${user.name} ${portal.url}", locals));
+
+		GlobalVariables.store("portal.url", "http://localhost");
+		Map<String, String> variables = new HashMap<String, String>();
+		variables.put("user.name", "root");
+		assertEquals("root http://localhost", interpolator.resolve("${user.name} ${portal.url}", variables));
+		variables.put("portal.url", "http://local");
+		assertEquals("http://local", interpolator.resolve("${portal.url}", variables));
+		try {
+			interpolator.resolve("${missing}", variables);
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("Variable not stored : missing", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testGetVariables() {
+		assertEquals(Arrays.asList("a.b", "c", "d"), interpolator.getVariables("${a.b} storedVars['c'] ${d} ${} $e"));
+		assertEquals(Collections.emptyList(), interpolator.getVariables("no variable"));
+	}
+
+	/**
+	 * The interpreter resolves the parameters to the value of the string literals of the generated code.
+	 */
+	@Test
+	public void testResolveAsTheLiteral() {
+		Map<String, String> variables = new HashMap<String, String>();
+		variables.put("user.name", "root");
+		variables.put("id", "x\"1\\");
+		variables.put("class", "c");
+		GlobalVariables.store("portal.url", "http://localhost");
+		String[] params = {"", "plain", "Hello ${user.name}!", "//a[@id=storedVars['id']]", "${class}${user.name}",
+		      "a\\nb<br />c\nd", "say \"hi\" C:\\temp\\x a\\", "${portal.url}/${} $x storedVars[id]", "<br/>"};
+		Set<String> locals = new HashSet<String>(Arrays.asList("user$name", "id", "class_"));
+		for (String param : params) {
+			assertEquals(param, interpolator.resolve(param, variables), evaluate(interpolator.toJavaString(param,
+			      locals), variables));
+		}
+	}
+
+	/**
+	 * Evaluates the content of a string literal as written by the interpolator: escapes and concatenated
+	 * variables.
+	 */
+	private static String evaluate(String literal, Map<String, String> variables) {
+		Map<String, String> identifiers = new HashMap<String, String>();
+		for (Map.Entry<String, String> variable : variables.entrySet()) {
+			identifiers.put(VariableInterpolator.toIdentifier(variable.getKey()), variable.getValue());
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < literal.length(); i++) {
+			char c = literal.charAt(i);
+			if (c == '\\') {
+				char escaped = literal.charAt(++i);
+				sb.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+			} else if (c == '"') {
+				// closes the literal before a concatenated variable
+				int end = literal.indexOf(" + \"", i + 4);
+				String reference = literal.substring(i + 4, end);
+				if (reference.startsWith("GlobalVariables.get(\"")) {
+					sb.append(GlobalVariables.get(reference.substring(21, reference.length() - 2)));
+				} else {
+					sb.append(identifiers.get(reference));
+				}
+				i = end + 3;
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+}
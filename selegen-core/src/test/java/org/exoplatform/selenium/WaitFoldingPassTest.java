@@ -0,0 +1,54 @@
+package org.exoplatform.selenium;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class WaitFoldingPassTest {
+
+	@Test
+	public void testRemoveRepeatedChecks() throws Exception {
+		PassRun run = new PassRun(new WaitFoldingPass(), "verifyText | id=title | Home", "verifyText | id=title | Home",
+		      "waitForVisible | id=menu | ", " |  | ", "waitForVisible | id=menu | ");
+		assertEquals(Arrays.asList("11: verifyText | id=title | Home", "13: waitForVisible | id=menu | ",
+		      "14:  |  | "), run.commands);
+		assertEquals(Arrays.asList("Test_Pass.html:12 verifyText \"id=title\" removed, same as line 11",
+		      "Test_Pass.html:15 waitForVisible \"id=menu\" removed, same as line 13"), run.reports);
+	}
+
+	@Test
+	public void testRemoveImpliedChecks() throws Exception {
+		PassRun run = new PassRun(new WaitFoldingPass(), "waitForElementPresent | id=menu | ",
+		      "verifyElementPresent | id=menu | ", "waitForTextPresent | Saved | ", "verifyTextPresent | Saved | ");
+		assertEquals(Arrays.asList("11: waitForElementPresent | id=menu | ", "13: waitForTextPresent | Saved | "),
+		      run.commands);
+		assertEquals(Arrays.asList(
+		      "Test_Pass.html:12 verifyElementPresent \"id=menu\" removed, implied by the waitForElementPresent of line 11",
+		      "Test_Pass.html:14 verifyTextPresent \"Saved\" removed, implied by the waitForTextPresent of line 13"),
+		      run.reports);
+	}
+
+	@Test
+	public void testRemoveCoveredWaits() throws Exception {
+		PassRun run = new PassRun(new WaitFoldingPass(), "waitForElementPresent | id=menu | ",
+		      "waitForVisible | id=menu | ", "click | id=menu | ");
+		assertEquals(Arrays.asList("12: waitForVisible | id=menu | ", "13: click | id=menu | "), run.commands);
+		assertEquals(Arrays.asList("Test_Pass.html:11 waitForElementPresent \"id=menu\" removed, covered by the "
+		      + "waitForVisible of line 12"), run.reports);
+	}
+
+	@Test
+	public void testKeepOtherCommands() throws Exception {
+		PassRun run = new PassRun(new WaitFoldingPass(), "verifyText | id=title | Home", "verifyText | id=title | About",
+		      "verifyText | id=other | About", "click | id=save | ", "click | id=save | ",
+		      "verifyConfirmation | Sure? | ", "verifyConfirmation | Sure? | ", "waitForVisible | id=a | ",
+		      "verifyElementPresent | id=b | ", "verifyElementPresent | id=b | x", "waitForElementPresent | id=c | ",
+		      "waitForNotVisible | id=c | ");
+		assertEquals(12, run.commands.size());
+		assertEquals(Collections.emptyList(), run.reports);
+	}
+
+}
@@ -0,0 +1,194 @@
+package org.exoplatform.selenium.interpreter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.io.FileUtils;
+import org.exoplatform.selenium.SeleniumTestCaseGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the same scripts generated and interpreted, with HtmlUnit, and compares what they print and which
+ * ones fail.
+ */
+public class InterpreterParityTest {
+
+	private static final String[] SCRIPTS = {"Test_Pass", "Test_Fail", "Test_Timeout"};
+
+	private static final String[] PROPERTIES = {"selenium.browser", "selenium.host", "selenium.host.port",
+	      "selenium.timeout"};
+
+	private static final String PAGE = "<html><head><title>Parity</title></head><body>\n"
+	      + "<span id=\"out\">ready</span>\n"
+	      + "<button id=\"hello\" onclick=\"document.getElementById('out').innerHTML = 'Hello john'\">hello</button>\n"
+	      + "<button id=\"save\" onclick=\"alert('Saved')\">save</button>\n</body></html>\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private HttpServer server;
+
+	private final Map<String, String> properties = new HashMap<String, String>();
+
+	private File suite;
+
+	@Before
+	public void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/parity.html", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] page = PAGE.getBytes("UTF-8");
+				exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+				exchange.sendResponseHeaders(200, page.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(page);
+				out.close();
+			}
+		});
+		server.start();
+		for (String property : PROPERTIES) {
+			properties.put(property, System.getProperty(property));
+		}
+		System.setProperty("selenium.browser", "htmlunit");
+		System.setProperty("selenium.host", "localhost");
+		System.setProperty("selenium.host.port", String.valueOf(server.getAddress().getPort()));
+		System.setProperty("selenium.timeout", "3000");
+
+		suite = folder.newFolder("suite");
+		File scripts = new File(suite, "parity");
+		script(scripts, "Test_Pass", "open | /parity.html | ", "storeText | id=out | before",
+		      "echo | parity before=${before} | ", "click | id=hello | ", "storeText | id=out | after",
+		      "echo | parity after=${after} &quot;quoted&quot; \\ | ", "verifyTextPresent | Hello john | ",
+		      "click | id=save | ", "waitForAlert | Saved | ", "echo | parity done | ");
+		script(scripts, "Test_Fail", "open | /parity.html | ", "echo | parity start | ",
+		      "verifyTextPresent | Hello john | ", "echo | parity not reached | ");
+		script(scripts, "Test_Timeout", "open | /parity.html | ", "echo | parity start | ",
+		      "waitForAlert | Saved | ", "echo | parity not reached | ");
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+		for (Map.Entry<String, String> property : properties.entrySet()) {
+			if (property.getValue() == null) {
+				System.clearProperty(property.getKey());
+			} else {
+				System.setProperty(property.getKey(), property.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Writes a script in the layout of the Selenium IDE, each row being its cells separated by " | ".
+	 */
+	private static void script(File directory, String name, String... rows) throws IOException {
+		StringBuilder html = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		html.append("<html><head><title>").append(name).append("</title></head><body>\n");
+		html.append("<table><thead><tr><td>").append(name).append("</td></tr></thead><tbody>\n");
+		for (String row : rows) {
+			html.append("<tr>\n");
+			for (String cell : row.split(" \\| ", -1)) {
+				html.append("\t<td>").append(cell).append("</td>\n");
+			}
+			html.append("</tr>\n");
+		}
+		html.append("</tbody></table></body></html>\n");
+		FileUtils.writeStringToFile(new File(directory, name + ".html"), html.toString(), "UTF-8");
+	}
+
+	@Test
+	public void testSameResults() throws Exception {
+		Map<String, List<String>> generated = runGenerated();
+		assertEquals(Arrays.asList("parity before=ready", "parity after=Hello john \"quoted\" \\", "parity done",
+		      "passed"), generated.get("Test_Pass"));
+		assertEquals(Arrays.asList("parity start", "failed"), generated.get("Test_Fail"));
+		assertEquals(Arrays.asList("parity start", "failed"), generated.get("Test_Timeout"));
+		assertEquals(generated, runInterpreted());
+	}
+
+	private Map<String, List<String>> runGenerated() throws Exception {
+		File sources = folder.newFolder("sources");
+		File classes = folder.newFolder("classes");
+		SeleniumTestCaseGenerator generator = new SeleniumTestCaseGenerator(suite.getPath(), sources.getPath());
+		generator.setIncremental(false);
+		generator.run();
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertNotNull("No Java compiler in " + System.getProperty("java.home"), compiler);
+		List<String> arguments = new ArrayList<String>(Arrays.asList("-nowarn", "-encoding", "UTF-8", "-d",
+		      classes.getPath(), "-cp", System.getProperty("java.class.path")));
+		for (String script : SCRIPTS) {
+			arguments.add(new File(sources, "parity/" + script + ".java").getPath());
+		}
+		assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[arguments.size()])));
+
+		URLClassLoader loader = new URLClassLoader(new URL[] {classes.toURI().toURL()}, getClass().getClassLoader());
+		Map<String, List<String>> results = new TreeMap<String, List<String>>();
+		for (String script : SCRIPTS) {
+			results.put(script, run(Request.aClass(loader.loadClass("parity." + script))));
+		}
+		return results;
+	}
+
+	private Map<String, List<String>> runInterpreted() throws Exception {
+		Map<String, List<String>> results = new TreeMap<String, List<String>>();
+		for (String script : SCRIPTS) {
+			File file = new File(suite, "parity/" + script + ".html");
+			results.put(script, run(Request.runner(new SeleneseSuiteRunner(getClass(), file))));
+		}
+		return results;
+	}
+
+	/**
+	 * Runs the test, returning the lines printed by its echo commands, then whether it passed or failed.
+	 */
+	private static List<String> run(Request request) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PrintStream stdout = System.out;
+		Result result;
+		System.setOut(new PrintStream(out, true, "UTF-8"));
+		try {
+			result = new JUnitCore().run(request);
+		} finally {
+			System.setOut(stdout);
+		}
+		List<String> lines = new ArrayList<String>();
+		for (String line : out.toString("UTF-8").split("\r?\n")) {
+			if (line.startsWith("parity ")) {
+				lines.add(line);
+			}
+		}
+		lines.add(result.getRunCount() == 1 && result.wasSuccessful() ? "passed" : "failed");
+		return lines;
+	}
+
+}
@@ -0,0 +1,97 @@
+package org.exoplatform.selenium.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.WebDriverBackedSelenium;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+public class ElementCacheTest {
+
+	private File page;
+
+	private HtmlUnitDriver driver;
+
+	private WebDriverBackedSelenium selenium;
+
+	@Before
+	public void setUp() throws Exception {
+		page = File.createTempFile("cache", ".html");
+		FileUtils.writeStringToFile(page, "<html><body><input type='checkbox' id='remember'/>"
+		      + "<a id='next' href='" + page.getName() + "'>next</a></body></html>");
+		driver = new HtmlUnitDriver(true);
+		selenium = new WebDriverBackedSelenium(driver, page.toURI().toString());
+		driver.get(page.toURI().toString());
+		ElementCache.install(selenium);
+	}
+
+	@After
+	public void tearDown() {
+		driver.quit();
+		page.delete();
+	}
+
+	@Test
+	public void testCacheUntilClear() {
+		long hits = ElementCache.getHits();
+		long misses = ElementCache.getMisses();
+		selenium.check("id=remember");
+		selenium.uncheck("id=remember");
+		assertEquals(misses + 1, ElementCache.getMisses());
+		assertEquals(hits + 1, ElementCache.getHits());
+
+		// a clickAndWait does not wait for the page through the processor
+		selenium.click("id=next");
+		ElementCache.clear(selenium);
+		long stales = ElementCache.getStales();
+		selenium.check("id=remember");
+		assertEquals(misses + 3, ElementCache.getMisses());
+		assertEquals(stales, ElementCache.getStales());
+		assertTrue(selenium.isChecked("id=remember"));
+	}
+
+	@Test
+	public void testInstallOnce() {
+		ElementCache.install(selenium);
+		long misses = ElementCache.getMisses();
+		selenium.check("id=remember");
+		assertEquals(misses + 1, ElementCache.getMisses());
+	}
+
+	@Test
+	public void testClearOnReset() {
+		SeleniumSession session = new SeleniumSession(page.toURI().toString(), new HtmlUnitDriver(true));
+		try {
+			session.getDriver().get(page.toURI().toString());
+			ElementCache.install(session.getSelenium());
+			session.getSelenium().check("id=remember");
+			assertTrue(session.reset());
+			session.getDriver().get(page.toURI().toString());
+			long misses = ElementCache.getMisses();
+			long stales = ElementCache.getStales();
+			session.getSelenium().check("id=remember");
+			assertEquals(misses + 1, ElementCache.getMisses());
+			assertEquals(stales, ElementCache.getStales());
+		} finally {
+			session.quit();
+		}
+	}
+
+	@Test
+	public void testNavigations() {
+		assertTrue(ElementCache.isNavigation("clickAndWait"));
+		assertTrue(ElementCache.isNavigation("selectAndWait"));
+		assertTrue(ElementCache.isNavigation("open"));
+		assertTrue(ElementCache.isNavigation("selectFrame"));
+		assertFalse(ElementCache.isNavigation("click"));
+		assertFalse(ElementCache.isNavigation("waitForElementPresent"));
+	}
+
+}
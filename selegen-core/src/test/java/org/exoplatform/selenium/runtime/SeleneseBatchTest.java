@@ -0,0 +1,64 @@
+package org.exoplatform.selenium.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriverBackedSelenium;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import com.thoughtworks.selenium.SeleniumException;
+
+public class SeleneseBatchTest {
+
+	private File page;
+
+	private HtmlUnitDriver driver;
+
+	private WebDriverBackedSelenium selenium;
+
+	@Before
+	public void setUp() throws Exception {
+		page = File.createTempFile("batch", ".html");
+		FileUtils.writeStringToFile(page, "<html><body><form>"
+		      + "<input id='login' name='username'/><input name='password'/><input type='checkbox' id='remember'/>"
+		      + "</form></body></html>");
+		driver = new HtmlUnitDriver(true);
+		selenium = new WebDriverBackedSelenium(driver, page.toURI().toString());
+		driver.get(page.toURI().toString());
+	}
+
+	@After
+	public void tearDown() {
+		driver.quit();
+		page.delete();
+	}
+
+	@Test
+	public void testRunIdentifiers() {
+		new SeleneseBatch(selenium).addAll(
+		      "type | login | root\ntype | identifier=password | gtn\ncheck | id=remember | \ntype | name=username | john")
+		      .run();
+		assertEquals("john", driver.findElement(By.id("login")).getAttribute("value"));
+		assertEquals("gtn", driver.findElement(By.name("password")).getAttribute("value"));
+		assertTrue(driver.findElement(By.id("remember")).isSelected());
+	}
+
+	@Test
+	public void testFailOnMissingElement() {
+		try {
+			new SeleneseBatch(selenium).add("type", "identifier=missing", "x").run();
+			fail();
+		} catch (SeleniumException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("identifier=missing"));
+		}
+	}
+
+}
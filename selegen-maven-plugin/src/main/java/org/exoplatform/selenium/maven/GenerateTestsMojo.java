@@ -0,0 +1,264 @@
+package org.exoplatform.selenium.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.exoplatform.selenium.OptimizationPasses;
+import org.exoplatform.selenium.SeleneseCommand;
+import org.exoplatform.selenium.SeleniumTestCaseGenerator;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+/**
+ * Generates the JUnit tests of the recorded Selenese suite and compiles them to the test classes, in the
+ * build JVM and without writing their sources.
+ *
+ * @goal generate
+ * @phase process-test-classes
+ * @requiresDependencyResolution test
+ */
+public class GenerateTestsMojo extends AbstractMojo {
+
+	/**
+	 * @parameter expression="${project}"
+	 * @required
+	 * @readonly
+	 */
+	private MavenProject project;
+
+	/**
+	 * @component
+	 */
+	private BuildContext buildContext;
+
+	/**
+	 * Directory of the recorded Test_*.html scripts.
+	 *
+	 * @parameter expression="${selegen.suite}" default-value="${project.basedir}/src/suite"
+	 */
+	private File suiteDirectory;
+
+	/**
+	 * @parameter default-value="${project.build.testOutputDirectory}"
+	 * @required
+	 */
+	private File outputDirectory;
+
+	/**
+	 * Directory keeping the generation manifest.
+	 *
+	 * @parameter default-value="${project.build.directory}/selegen"
+	 * @required
+	 */
+	private File workDirectory;
+
+	/**
+	 * Number of workers translating the suite, 0 uses one worker per processor.
+	 *
+	 * @parameter expression="${selegen.threads}" default-value="1"
+	 */
+	private int threads;
+
+	/**
+	 * @parameter expression="${selegen.incremental}" default-value="true"
+	 */
+	private boolean incremental;
+
+	/**
+	 * @parameter expression="${selegen.reuseSession}" default-value="false"
+	 */
+	private boolean reuseSession;
+
+	/**
+	 * Times each step of the tests, see org.exoplatform.selenium.runtime.StepTimer.
+	 *
+	 * @parameter expression="${selegen.instrument}" default-value="false"
+	 */
+	private boolean instrument;
+
+	/**
+	 * Reads the Navigation Timing of each page loaded by the tests, see
+	 * org.exoplatform.selenium.runtime.NavigationTiming.
+	 *
+	 * @parameter expression="${selegen.navigationTiming}" default-value="false"
+	 */
+	private boolean navigationTiming;
+
+	/**
+	 * Keeps the elements found by the commands of the tests until the next page, see
+	 * org.exoplatform.selenium.runtime.ElementCache.
+	 *
+	 * @parameter expression="${selegen.elementCache}" default-value="false"
+	 */
+	private boolean elementCache;
+
+	/**
+	 * Splits the tests into segments of this number of commands, retried and resumed from their
+	 * checkpoint, see org.exoplatform.selenium.runtime.CheckpointRunner. 0 generates one block.
+	 *
+	 * @parameter expression="${selegen.checkpoints}" default-value="0"
+	 */
+	private int checkpoints;
+
+	/**
+	 * Optimization passes rewriting the commands before they are generated: a comma separated list of
+	 * mouseOver, waits, locators and batch, all or none.
+	 *
+	 * @parameter expression="${selegen.optimize}" default-value="none"
+	 */
+	private String optimize;
+
+	/**
+	 * CSV file ranking the locators of the suite by expected cost times number of uses, none by default as
+	 * every script is then parsed, the up to date ones too.
+	 *
+	 * @parameter expression="${selegen.locatorReport}"
+	 */
+	private File locatorReport;
+
+	/**
+	 * @parameter expression="${selegen.source}" default-value="1.6"
+	 */
+	private String source;
+
+	/**
+	 * @parameter expression="${selegen.target}" default-value="1.6"
+	 */
+	private String target;
+
+	/**
+	 * @parameter expression="${selegen.skip}" default-value="false"
+	 */
+	private boolean skip;
+
+	public void execute() throws MojoExecutionException, MojoFailureException {
+		if (skip) {
+			getLog().info("Skipping the generation of the Selenium tests");
+			return;
+		}
+		if (!suiteDirectory.isDirectory()) {
+			getLog().info("No Selenium suite in " + suiteDirectory);
+			return;
+		}
+		if (buildContext.isIncremental() && !buildContext.hasDelta(suiteDirectory)) {
+			getLog().info("Selenium tests are up to date");
+			return;
+		}
+		buildContext.removeMessages(suiteDirectory);
+
+		InMemorySourceSink sink = new InMemorySourceSink(outputDirectory);
+		SeleniumTestCaseGenerator generator;
+		try {
+			generator = new SeleniumTestCaseGenerator(suiteDirectory.getPath(), workDirectory.getPath()) {
+				@Override
+				protected void untranslated(String scriptFile, SeleneseCommand command, String message) {
+					super.untranslated(scriptFile, command, message);
+					buildContext.addMessage(new File(suiteDirectory, scriptFile), command.getLine(), 0, message,
+					      BuildContext.SEVERITY_ERROR, null);
+				}
+			};
+		} catch (Exception e) {
+			throw new MojoExecutionException("Unable to create the generator", e);
+		}
+		generator.setThreads(threads);
+		generator.setIncremental(incremental);
+		generator.setReuseSession(reuseSession);
+		generator.setInstrument(instrument);
+		generator.setNavigationTiming(navigationTiming);
+		generator.setElementCache(elementCache);
+		generator.setCheckpoints(checkpoints);
+		generator.setLocatorReport(locatorReport);
+		try {
+			generator.setOptimizations(OptimizationPasses.parse(optimize));
+		} catch (IllegalArgumentException e) {
+			throw new MojoFailureException(e.getMessage());
+		}
+		generator.setReportUntranslated(true);
+		generator.setSink(sink);
+
+		try {
+			generator.run();
+		} catch (Exception e) {
+			if (!generator.getUntranslated().isEmpty()) {
+				throw new MojoFailureException(generator.getUntranslated().size()
+				      + " Selenium commands were not translated, see the errors above");
+			}
+			throw new MojoExecutionException("Unable to generate the Selenium tests", e);
+		}
+
+		compile(sink.getSources());
+		buildContext.refresh(outputDirectory);
+		getLog().info(generator.getTestsNumber() + " tests generated, " + generator.getTestsUpToDate()
+		      + " tests up to date");
+	}
+
+	private void compile(List<JavaFileObject> sources) throws MojoExecutionException, MojoFailureException {
+		if (sources.isEmpty()) {
+			return;
+		}
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new MojoExecutionException("No Java compiler available, the build must run on a JDK");
+		}
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+		try {
+			outputDirectory.mkdirs();
+			fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singleton(outputDirectory));
+			fileManager.setLocation(StandardLocation.CLASS_PATH, getClasspath());
+			List<String> options = Arrays.asList("-g", "-nowarn", "-encoding", "UTF-8", "-source", source, "-target",
+			      target);
+			boolean success = compiler.getTask(null, fileManager, diagnostics, options, null, sources).call();
+			for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+				String message = (diagnostic.getSource() != null ? diagnostic.getSource().getName() : "") + ":"
+				      + diagnostic.getLineNumber() + " : " + diagnostic.getMessage(null);
+				if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+					getLog().error(message);
+				} else {
+					getLog().debug(message);
+				}
+			}
+			if (!success) {
+				throw new MojoFailureException("Compilation of the generated Selenium tests failed");
+			}
+			getLog().info("Compiled " + sources.size() + " Selenium tests to " + outputDirectory);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Unable to compile the Selenium tests", e);
+		} finally {
+			try {
+				fileManager.close();
+			} catch (IOException e) {
+				getLog().debug(e);
+			}
+		}
+	}
+
+	private List<File> getClasspath() throws MojoExecutionException {
+		List<File> classpath = new ArrayList<File>();
+		try {
+			for (Object element : project.getTestClasspathElements()) {
+				classpath.add(new File((String) element));
+			}
+		} catch (DependencyResolutionRequiredException e) {
+			throw new MojoExecutionException("Unable to get the test class path", e);
+		}
+		return classpath;
+	}
+
+}
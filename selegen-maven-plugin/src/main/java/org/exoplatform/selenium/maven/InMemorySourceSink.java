@@ -0,0 +1,89 @@
+package org.exoplatform.selenium.maven;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+import org.exoplatform.selenium.TestSourceSink;
+
+/**
+ * Keeps the generated tests in memory, as sources handed to the Java compiler. The output of a test is
+ * its class in the classes directory.
+ */
+public class InMemorySourceSink implements TestSourceSink {
+
+	private final File classesDirectory;
+
+	private final Map<String, JavaFileObject> sources = new TreeMap<String, JavaFileObject>();
+
+	public InMemorySourceSink(File classesDirectory) {
+		this.classesDirectory = classesDirectory;
+	}
+
+	public boolean exists(String test) {
+		return new File(classesDirectory, test + ".class").exists();
+	}
+
+	public Writer open(String test) {
+		return new StringWriter();
+	}
+
+	public void commit(String test, Writer writer) {
+		synchronized (sources) {
+			sources.put(test, new Source(test, writer.toString()));
+		}
+	}
+
+	public void abort(String test, Writer writer) {
+	}
+
+	/**
+	 * Deletes the class of the test and its inner classes.
+	 */
+	public void remove(String test) {
+		File classFile = new File(classesDirectory, test + ".class");
+		File[] innerClasses = classFile.getParentFile().listFiles();
+		if (innerClasses != null) {
+			String prefix = classFile.getName().replace(".class", "$");
+			for (File innerClass : innerClasses) {
+				if (innerClass.getName().startsWith(prefix)) {
+					innerClass.delete();
+				}
+			}
+		}
+		if (classFile.delete()) {
+			System.out.println("[INFO] Removing file : " + classFile);
+		}
+	}
+
+	public List<JavaFileObject> getSources() {
+		synchronized (sources) {
+			return new ArrayList<JavaFileObject>(sources.values());
+		}
+	}
+
+	private static class Source extends SimpleJavaFileObject {
+
+		private final String code;
+
+		Source(String test, String code) {
+			super(URI.create("string:///" + test + Kind.SOURCE.extension), Kind.SOURCE);
+			this.code = code;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return code;
+		}
+
+	}
+
+}
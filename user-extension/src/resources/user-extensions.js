@@ -119,6 +119,33 @@ Selenium.prototype.doTypeRandom = function(locator,string_length) {
 		 this.page().replaceText(element, valueToType);
     }
 
+/**
+  * This function runs several actions in one call, instead of one call per action
+  * Usage:
+  *  - actions  one action per line (or <br />), written as command | target | value
+  *
+  * example of use, filling a form, the target being:
+  *  type | username | root<br />type | password | gtn<br />check | rememberme |
+  *
+  * The actions must not wait for the page, as clickAndWait does.
+  * Generated by selegen with -Dselegen.optimize=batch, see org.exoplatform.selenium.runtime.SeleneseBatch
+  **/
+Selenium.prototype.doBatch = function(actions) {
+	var lines = actions.split(/\r?\n|<br\s*\/?>|\\n/);
+	for (var i = 0; i < lines.length; i++) {
+		if (lines[i].replace(/\s+/g, '').length == 0) {
+			continue;
+		}
+		var parts = lines[i].split(/ \|(?: |$)/);
+		var command = parts[0].replace(/^\s+|\s+$/g, '');
+		var action = this['do' + command.charAt(0).toUpperCase() + command.substring(1)];
+		if (!action) {
+			throw new SeleniumError("Unknown command in batch: " + command);
+		}
+		action.call(this, parts.length > 1 ? parts[1] : '', parts.length > 2 ? parts[2] : '');
+	}
+};
+
 /**
  * storeValue, storeText, storeAttribute and store actions now 
  * have 'global' equivalents.